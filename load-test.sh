@@ -0,0 +1,65 @@
+#! /usr/bin/env bash
+
+# Repeatable load against the user lookups, by name, by id and by id through the async endpoint. The statistics are
+# reset before each phase and the Hibernate cache hit ratios printed after it, so the numbers cover that phase alone.
+# The users are only created on the first run.
+#
+# The server needs Hibernate statistics, build with -Pdiagnostics, and a user with the monitor role for
+# /rest/diagnostics, e.g. add-user.sh -a -u monitor -p monitor -g monitor
+# Repeated lookups by id are answered from the serialization cache, start the server with
+# -Dserialization.cache.bytes=0 to measure the Hibernate caches alone. That also sends every async lookup to the
+# executor, the async phase runs with more concurrent requests than it has threads (async.threads, 16 by default),
+# requests it cannot queue are rejected with 503 and counted separately.
+#
+# usage: load-test.sh [requests per phase] [concurrency] [async concurrency]
+
+URL=${URL:-http://localhost:8080/week4-demo1/rest}
+MONITOR=${MONITOR:-monitor:monitor}
+USERS=${USERS:-1000}
+REQUESTS=${1:-20000}
+CONCURRENCY=${2:-8}
+ASYNC_CONCURRENCY=${3:-64}
+#requests per curl process, which keeps its connection open
+PER_CONNECTION=100
+
+if [ "$(curl -s -o /dev/null -w '%{http_code}' $URL/user/name/load-user-0)" != "200" ]; then
+	echo "Creating $USERS users"
+	seq 0 $((USERS - 1)) | awk 'BEGIN { printf "[" } { printf "%s{\"name\":\"load-user-%d\"}", (NR > 1 ? "," : ""), $1 } END { printf "]" }' \
+		| curl -s -f -X POST -H 'Content-Type: application/json' --data-binary @- $URL/user/batch || exit 1
+fi
+
+IDS=$(curl -s "$URL/user?fields=id,name" | grep -o '{[^}]*"load-user-[0-9]*"[^}]*}' | grep -o '"id":[0-9]*' | cut -d: -f2)
+if [ -z "$IDS" ]; then
+	echo "The users could not be listed"
+	exit 1
+fi
+
+# $1 the phase name, $2 the path of each lookup, followed by the values it is looked up by
+phase() {
+	local name=$1
+	local path=$2
+	shift 2
+	curl -s -f -u $MONITOR -X DELETE $URL/diagnostics || { echo "Could not reset $URL/diagnostics"; exit 1; }
+	local start=$(date +%s.%N)
+	printf '%s\n' "$@" | shuf -r -n $REQUESTS | sed "s|^|$URL$path|" \
+		| xargs -P $CONCURRENCY -n $PER_CONNECTION curl -s -w '\n%{http_code} %{time_total}\n' \
+		| grep '^[0-9][0-9][0-9] ' > /tmp/load-test-$name.txt
+	local end=$(date +%s.%N)
+
+	echo "== $name, $CONCURRENCY concurrent"
+	sort -n -k2 /tmp/load-test-$name.txt | awk -v start=$start -v end=$end '
+		{ t[NR] = $2; total += $2; if ($1 == 503) ++rejected; else if ($1 != 200) ++errors }
+		END {
+			printf "requests %d, errors %d, rejected %d, %.0f/s\n", NR, errors, rejected, NR / (end - start)
+			printf "latency ms: mean %.2f, p50 %.2f, p99 %.2f, max %.2f\n", total / NR * 1000,
+				t[int(NR * 0.5)] * 1000, t[int(NR * 0.99)] * 1000, t[NR] * 1000
+		}'
+	local diagnostics=$(curl -s -u $MONITOR $URL/diagnostics)
+	echo "$diagnostics" | grep -o '"\(secondLevelCache\|queryCache\)\(Hits\|Misses\|HitRatio\)":[0-9.E-]*' | tr '\n' ' '
+	echo
+	echo "$diagnostics" | grep -o '"GET /\(async/\)\?user[^"]*":{[^}]*}'
+}
+
+phase name /user/name/ $(seq -f 'load-user-%.0f' 0 $((USERS - 1)))
+phase id /user/ $IDS
+CONCURRENCY=$ASYNC_CONCURRENCY phase async /async/user/ $IDS
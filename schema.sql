@@ -1,5 +1,15 @@
+-- Creates the schema of a new database, existing databases are brought up to date with upgrade.sql
+
+-- Hibernate allocates ids from the sequence in blocks, so inserts can be batched
+CREATE SEQUENCE public.user_id_seq INCREMENT BY 50;
+
 CREATE TABLE public.user (
-  id      SERIAL PRIMARY KEY NOT NULL,
+  id      INTEGER PRIMARY KEY NOT NULL DEFAULT nextval('public.user_id_seq'),
   name    VARCHAR            NOT NULL,
-  created TIMESTAMP          NOT NULL
+  created TIMESTAMP          NOT NULL,
+  -- Used for optimistic locking, and to stop an older copy of a user replacing a newer one in the serialization cache
+  version INTEGER            NOT NULL DEFAULT 0
 );
+
+-- Lookup by name, the id is included as the lookup returns the first matching user by id
+CREATE INDEX user_name_idx ON public.user (name, id);
@@ -0,0 +1,140 @@
+package com.briteitservices.week4.repository;
+
+import com.briteitservices.week4.model.User;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.QueryHint;
+import javax.persistence.TypedQuery;
+import org.apache.deltaspike.data.api.Query;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups of a {@link User} by id and by name through Hibernate, with and without the second level and query
+ * caches, using the same query and hints as {@link UserRepository#get(String)}. Each thread looks up random users,
+ * one transaction per lookup as a request would.
+ * <p/>
+ * The database is an in-memory H2, so a miss costs far less than a round trip to PostgreSQL, and the caches are
+ * local Infinispan caches configured like the server's, except that the entity cache is not transactional as
+ * there is no transaction manager. The difference between the two settings is a lower bound on what the caches
+ * save, measure against the real server with <code>load-test.sh</code>. The hit ratios of each run are printed
+ * when it completes.
+ * <p/>
+ * On JDK 9 and later Hibernate 5.0 and Infinispan 8 need <code>java.lang</code>, <code>java.io</code> and
+ * <code>java.util</code> opened to them, pass <code>-jvmArgsAppend "--add-opens java.base/java.lang=ALL-UNNAMED
+ * ..."</code> to JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class UserLookupBenchmark {
+
+    private static final int USERS = 1000;
+
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private int firstId;
+    private String byName;
+    private QueryHint[] byNameHints;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        Method get = UserRepository.class.getMethod("get", String.class);
+        Query query = get.getAnnotation(Query.class);
+        byName = query.value();
+        byNameHints = query.hints();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.cache.use_second_level_cache", String.valueOf(cache));
+        properties.put("hibernate.cache.use_query_cache", String.valueOf(cache));
+        entityManagerFactory = Persistence.createEntityManagerFactory("benchmark", properties);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < USERS; ++i) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setCreated(new Date());
+            entityManager.persist(user);
+            if (i == 0) {
+                entityManager.flush();
+                firstId = user.getId();
+            }
+        }
+        //as in schema.sql, Hibernate does not create it
+        entityManager.createNativeQuery("create index user_name_idx on public.user (name, id)").executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        statistics.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nsecond level cache hits %d, misses %d; query cache hits %d, misses %d; statements %d%n",
+                statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getPrepareStatementCount());
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public User findById() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            User user = entityManager.find(User.class, firstId + ThreadLocalRandom.current().nextInt(USERS));
+            entityManager.getTransaction().commit();
+            return user;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public User findByName() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            TypedQuery<User> query = entityManager.createQuery(byName, User.class)
+                    .setParameter("name", "User " + ThreadLocalRandom.current().nextInt(USERS))
+                    .setMaxResults(1);
+            for (QueryHint hint : byNameHints) {
+                query.setHint(hint.name(), hint.value());
+            }
+            List<User> users = query.getResultList();
+            entityManager.getTransaction().commit();
+            return users.isEmpty() ? null : users.get(0);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.briteitservices.week4.serialization;
+
+import com.briteitservices.week4.model.User;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The per row cost of reading and writing the {@link User} properties through the compiled
+ * {@link PropertyGetter}s and {@link PropertySetter}s, compared with {@link Method#invoke}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark {
+
+    private static final int ROWS = 100;
+
+    private List<User> users;
+    private Method[] getters;
+    private Method[] setters;
+    private PropertyGetter[] compiledGetters;
+    private PropertySetter[] compiledSetters;
+    private Object[] values;
+
+    @Setup
+    public void setup() throws Exception {
+        users = BenchmarkData.users(ROWS);
+        getters = new Method[]{User.class.getMethod("getId"), User.class.getMethod("getName"),
+                User.class.getMethod("getCreated"), User.class.getMethod("getVersion")};
+        setters = new Method[getters.length];
+        compiledGetters = new PropertyGetter[getters.length];
+        compiledSetters = new PropertySetter[getters.length];
+        values = new Object[getters.length];
+        for (int i = 0; i < getters.length; ++i) {
+            setters[i] = User.class.getMethod("s" + getters[i].getName().substring(1), getters[i].getReturnType());
+            compiledGetters[i] = PropertyGetter.of(getters[i]);
+            compiledSetters[i] = PropertySetter.of(setters[i]);
+            values[i] = getters[i].invoke(users.get(0));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void getCompiled(Blackhole blackhole) throws Exception {
+        for (User user : users) {
+            for (PropertyGetter getter : compiledGetters) {
+                blackhole.consume(getter.get(user));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void getReflective(Blackhole blackhole) throws Exception {
+        for (User user : users) {
+            for (Method getter : getters) {
+                blackhole.consume(getter.invoke(user));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void setCompiled() throws Exception {
+        for (User user : users) {
+            for (int i = 0; i < compiledSetters.length; ++i) {
+                compiledSetters[i].set(user, values[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void setReflective() throws Exception {
+        for (User user : users) {
+            for (int i = 0; i < setters.length; ++i) {
+                setters[i].invoke(user, values[i]);
+            }
+        }
+    }
+}
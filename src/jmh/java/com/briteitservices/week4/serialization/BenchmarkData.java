@@ -0,0 +1,328 @@
+package com.briteitservices.week4.serialization;
+
+import com.briteitservices.week4.model.User;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Test data for the benchmarks.
+ */
+final class BenchmarkData {
+
+    /**
+     * 2017-07-14T02:40:00Z, so the data does not depend on when the benchmark is run
+     */
+    private static final long START = 1500000000000L;
+
+    private BenchmarkData() {
+    }
+
+    static List<User> users(int count) {
+        List<User> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            User user = new User();
+            user.setId(i + 1);
+            user.setName("User " + i);
+            user.setCreated(new Date(START + i * 60000L));
+            user.setVersion(i % 5);
+            ret.add(user);
+        }
+        return ret;
+    }
+
+    static List<Order> orders(int count, int lines) {
+        List<Order> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            Order order = new Order();
+            order.setNumber("ORD-" + i);
+            order.setPlaced(new Date(START + i * 3600000L));
+            Customer customer = new Customer();
+            customer.setName("Customer " + (i % 50));
+            customer.setEmail("customer" + (i % 50) + "@example.com");
+            order.setCustomer(customer);
+            List<Line> orderLines = new ArrayList<>(lines);
+            for (int j = 0; j < lines; ++j) {
+                Line line = new Line();
+                line.setProduct("Product " + j);
+                line.setQuantity(j + 1);
+                line.setPrice(new BigDecimal("9.99").add(BigDecimal.valueOf(j)));
+                orderLines.add(line);
+            }
+            order.setLines(orderLines);
+            ret.add(order);
+        }
+        return ret;
+    }
+
+    static List<Dates> dates(int count) {
+        List<Dates> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            Dates dates = new Dates();
+            long time = START + i * 86400000L;
+            dates.setCreated(new Date(time));
+            dates.setUpdated(new Date(time + 1000));
+            dates.setStarted(new Date(time + 60000));
+            dates.setFinished(new Date(time + 3600000));
+            dates.setDue(new Date(time + 86400000L));
+            dates.setReviewed(new Date(time + 172800000L));
+            ret.add(dates);
+        }
+        return ret;
+    }
+
+    static List<Enums> enums(int count) {
+        Status[] statuses = Status.values();
+        Priority[] priorities = Priority.values();
+        List<Enums> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            Enums enums = new Enums();
+            enums.setStatus(statuses[i % statuses.length]);
+            enums.setPreviousStatus(statuses[(i + 1) % statuses.length]);
+            enums.setPriority(priorities[i % priorities.length]);
+            enums.setEscalation(priorities[(i + 2) % priorities.length]);
+            ret.add(enums);
+        }
+        return ret;
+    }
+
+    /**
+     * Counts the bytes written to it, the count is returned by the benchmarks so the writes are not eliminated
+     */
+    static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    public static class Customer {
+        private String name;
+        private String email;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+    }
+
+    public static class Line {
+        private String product;
+        private Integer quantity;
+        private BigDecimal price;
+
+        public String getProduct() {
+            return product;
+        }
+
+        public void setProduct(String product) {
+            this.product = product;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+    }
+
+    public static class Order {
+        private String number;
+        private Date placed;
+        private Customer customer;
+        private List<Line> lines;
+
+        public String getNumber() {
+            return number;
+        }
+
+        public void setNumber(String number) {
+            this.number = number;
+        }
+
+        public Date getPlaced() {
+            return placed;
+        }
+
+        public void setPlaced(Date placed) {
+            this.placed = placed;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+    }
+
+    public static class Dates {
+        private Date created;
+        private Date updated;
+        private Date started;
+        private Date finished;
+        private Date due;
+        private Date reviewed;
+
+        public Date getCreated() {
+            return created;
+        }
+
+        public void setCreated(Date created) {
+            this.created = created;
+        }
+
+        public Date getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(Date updated) {
+            this.updated = updated;
+        }
+
+        public Date getStarted() {
+            return started;
+        }
+
+        public void setStarted(Date started) {
+            this.started = started;
+        }
+
+        public Date getFinished() {
+            return finished;
+        }
+
+        public void setFinished(Date finished) {
+            this.finished = finished;
+        }
+
+        public Date getDue() {
+            return due;
+        }
+
+        public void setDue(Date due) {
+            this.due = due;
+        }
+
+        public Date getReviewed() {
+            return reviewed;
+        }
+
+        public void setReviewed(Date reviewed) {
+            this.reviewed = reviewed;
+        }
+    }
+
+    public enum Status implements RestfulEnum {
+        NEW("New"), OPEN("Open"), IN_PROGRESS("In progress"), BLOCKED("Blocked"), RESOLVED("Resolved"), CLOSED("Closed");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public enum Priority implements RestfulEnum {
+        LOW("Low"), NORMAL("Normal"), HIGH("High"), URGENT("Urgent");
+
+        private final String label;
+
+        Priority(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static class Enums {
+        private Status status;
+        private Status previousStatus;
+        private Priority priority;
+        private Priority escalation;
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public Status getPreviousStatus() {
+            return previousStatus;
+        }
+
+        public void setPreviousStatus(Status previousStatus) {
+            this.previousStatus = previousStatus;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Priority priority) {
+            this.priority = priority;
+        }
+
+        public Priority getEscalation() {
+            return escalation;
+        }
+
+        public void setEscalation(Priority escalation) {
+            this.escalation = escalation;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.briteitservices.week4.serialization;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link JsonDateFormat} compared with the <code>ThreadLocal&lt;SimpleDateFormat&gt;</code> it replaced, which is
+ * still available as the deprecated {@link SerializedView#DATE_FORMAT} and {@link SerializedView#DATE_TIME_FORMAT}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateFormatBenchmark {
+
+    /**
+     * 2017-07-14T02:40:00Z
+     */
+    private static final Date DATE = new Date(1500000000000L);
+
+    @Param({"UTC", "America/New_York"})
+    private String zone;
+
+    private JsonDateFormat dateFormat;
+    private JsonDateFormat dateTimeFormat;
+    private ThreadLocal<DateFormat> simpleDateFormat;
+    private ThreadLocal<DateFormat> simpleDateTimeFormat;
+    private String date;
+
+    @Setup
+    public void setup() {
+        dateFormat = new JsonDateFormat(ZoneId.of(zone), false);
+        dateTimeFormat = new JsonDateFormat(ZoneId.of(zone), true);
+        simpleDateFormat = threadLocal("yyyy-MM-dd");
+        simpleDateTimeFormat = threadLocal("yyyy-MM-dd HH:mm:ss");
+        date = dateFormat.format(DATE);
+    }
+
+    private ThreadLocal<DateFormat> threadLocal(final String pattern) {
+        final TimeZone timeZone = TimeZone.getTimeZone(zone);
+        return new ThreadLocal<DateFormat>() {
+            @Override
+            protected DateFormat initialValue() {
+                DateFormat format = new SimpleDateFormat(pattern);
+                format.setTimeZone(timeZone);
+                return format;
+            }
+        };
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return dateFormat.format(DATE);
+    }
+
+    @Benchmark
+    public String formatDateSimpleDateFormat() {
+        return simpleDateFormat.get().format(DATE);
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return dateTimeFormat.format(DATE);
+    }
+
+    @Benchmark
+    public String formatDateTimeSimpleDateFormat() {
+        return simpleDateTimeFormat.get().format(DATE);
+    }
+
+    @Benchmark
+    public Date parseDate() throws ParseException {
+        return dateFormat.parse(date);
+    }
+
+    @Benchmark
+    public Date parseDateSimpleDateFormat() throws ParseException {
+        return simpleDateFormat.get().parse(date);
+    }
+}
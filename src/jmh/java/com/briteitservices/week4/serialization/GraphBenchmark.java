@@ -0,0 +1,141 @@
+package com.briteitservices.week4.serialization;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of nested views, additional values, date and enum heavy objects, {@link SerializedMapView} and
+ * the {@link SerializationProvider}, each over 1000 objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+    private static final int COUNT = 1000;
+    private static final int LINES = 10;
+
+    private static final SerializedView.Builder<BenchmarkData.Customer> CUSTOMER = SerializedView.builder(BenchmarkData.Customer.class);
+    private static final SerializedView.Builder<BenchmarkData.Line> LINE = SerializedView.builder(BenchmarkData.Line.class);
+
+    private static final SerializedView<BenchmarkData.Order> ORDER_VIEW = SerializedView.builder(BenchmarkData.Order.class)
+            .include("customer", CUSTOMER)
+            .include("lines", LINE)
+            .build();
+    private static final SerializedView<BenchmarkData.Order> ORDER_ADDITIONAL_VIEW = SerializedView.builder(BenchmarkData.Order.class)
+            .includeAdditional("account", CUSTOMER)
+            .build();
+    private static final SerializedView<BenchmarkData.Dates> DATE_VIEW = SerializedView.builder(BenchmarkData.Dates.class).build();
+    private static final SerializedView<BenchmarkData.Dates> DATE_TIME_VIEW = SerializedView.builder(BenchmarkData.Dates.class)
+            .showDateTime()
+            .build();
+    private static final SerializedView<BenchmarkData.Enums> ENUM_VIEW = SerializedView.builder(BenchmarkData.Enums.class).build();
+    private static final SerializedMapView MAP_VIEW = SerializedMapView.create(CUSTOMER.build(), LINE.build());
+
+    private List<BenchmarkData.Order> orders;
+    private List<BenchmarkData.Dates> dates;
+    private List<BenchmarkData.Enums> enums;
+    private Map<String, Object> map;
+    private String ordersJson;
+    private String datesJson;
+    private String enumsJson;
+    private SerializedObject<List<BenchmarkData.Order>> serializedOrders;
+    private SerializationProvider provider;
+
+    @Setup
+    public void setup() {
+        orders = BenchmarkData.orders(COUNT, LINES);
+        dates = BenchmarkData.dates(COUNT);
+        enums = BenchmarkData.enums(COUNT);
+        map = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); ++i) {
+            BenchmarkData.Order order = orders.get(i);
+            map.put("customer" + i, order.getCustomer());
+            map.put("line" + i, order.getLines().get(0));
+        }
+        ordersJson = ORDER_VIEW.serializeList(orders).getSerialized();
+        datesJson = DATE_VIEW.serializeList(dates).getSerialized();
+        enumsJson = ENUM_VIEW.serializeList(enums).getSerialized();
+        serializedOrders = ORDER_VIEW.serializeList(orders);
+        serializedOrders.getBytes();
+        provider = new SerializationProvider();
+    }
+
+    @Benchmark
+    public byte[] serializeNested() {
+        return ORDER_VIEW.serializeList(orders).getBytes();
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Order> deserializeNested() {
+        return ORDER_VIEW.deserializeList(ordersJson);
+    }
+
+    @Benchmark
+    public int serializeAdditional() {
+        int size = 0;
+        for (BenchmarkData.Order order : orders) {
+            Map<String, Object> additional = Collections.<String, Object>singletonMap("account", order.getCustomer());
+            size += ORDER_ADDITIONAL_VIEW.serialize(order, additional).getBytes().length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public byte[] serializeDates() {
+        return DATE_VIEW.serializeList(dates).getBytes();
+    }
+
+    @Benchmark
+    public byte[] serializeDateTimes() {
+        return DATE_TIME_VIEW.serializeList(dates).getBytes();
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Dates> deserializeDates() {
+        return DATE_VIEW.deserializeList(datesJson);
+    }
+
+    @Benchmark
+    public byte[] serializeEnums() {
+        return ENUM_VIEW.serializeList(enums).getBytes();
+    }
+
+    @Benchmark
+    public List<BenchmarkData.Enums> deserializeEnums() {
+        return ENUM_VIEW.deserializeList(enumsJson);
+    }
+
+    @Benchmark
+    public byte[] serializeMap() {
+        return MAP_VIEW.serialize(map).getBytes();
+    }
+
+    /**
+     * Writing an object that has already been encoded, as for a cached response
+     */
+    @Benchmark
+    public long writeSerialized() throws IOException {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        provider.writeTo(serializedOrders, null, null, null, null, new MultivaluedHashMap<String, Object>(), out);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,57 @@
+package com.briteitservices.week4.serialization;
+
+import com.briteitservices.week4.model.User;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of a single {@link User}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBenchmark {
+
+    private static final SerializedView<User> VIEW = SerializedView.builder(User.class).build();
+
+    /**
+     * Writes users without ids, users with ids would be loaded from the database when they are deserialized
+     */
+    private static final SerializedView<User> NEW_USER_VIEW = SerializedView.builder(User.class).exclude("id").build();
+
+    private User user;
+    private String json;
+
+    @Setup
+    public void setup() {
+        user = BenchmarkData.users(1).get(0);
+        json = NEW_USER_VIEW.serialize(user).getSerialized();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return VIEW.serialize(user).getBytes();
+    }
+
+    @Benchmark
+    public String serializeToString() {
+        return VIEW.serialize(user).getSerialized();
+    }
+
+    @Benchmark
+    public User deserialize() {
+        return VIEW.deserialize(json);
+    }
+}
@@ -0,0 +1,82 @@
+package com.briteitservices.week4.serialization;
+
+import com.briteitservices.week4.model.User;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Serialization of lists of {@link User}s, in memory, streamed through the {@link SerializationProvider} and in
+ * parallel, and deserialization from a string and from a stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserListBenchmark {
+
+    private static final SerializedView<User> VIEW = SerializedView.builder(User.class).build();
+    private static final SerializedView<User> PARALLEL_VIEW = SerializedView.builder(User.class).parallel(1000).build();
+    private static final SerializedView<User> NEW_USER_VIEW = SerializedView.builder(User.class).exclude("id").build();
+    private static final int CHUNK_SIZE = 50;
+
+    @Param({"1", "100", "10000", "1000000"})
+    private int rows;
+
+    private List<User> users;
+    private String json;
+    private byte[] jsonBytes;
+    private SerializationProvider provider;
+
+    @Setup
+    public void setup() {
+        users = BenchmarkData.users(rows);
+        json = NEW_USER_VIEW.serializeList(users).getSerialized();
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        provider = new SerializationProvider();
+    }
+
+    @Benchmark
+    public byte[] serializeList() {
+        return VIEW.serializeList(users).getBytes();
+    }
+
+    @Benchmark
+    public byte[] serializeListParallel() {
+        return PARALLEL_VIEW.serializeList(users).getBytes();
+    }
+
+    @Benchmark
+    public long streamList() throws IOException {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        provider.writeTo(VIEW.streamList(users), null, null, null, null, new MultivaluedHashMap<String, Object>(), out);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public List<User> deserializeList() {
+        return VIEW.deserializeList(json);
+    }
+
+    @Benchmark
+    public void deserializeListStreaming(final Blackhole blackhole) {
+        VIEW.deserializeList(new ByteArrayInputStream(jsonBytes), CHUNK_SIZE, blackhole::consume);
+    }
+}
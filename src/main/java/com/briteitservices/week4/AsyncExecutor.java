@@ -0,0 +1,19 @@
+package com.briteitservices.week4;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.inject.Qualifier;
+
+/**
+ * Qualifies the bounded executor produced by {@link AsyncExecutorProvider}, so it is not picked up by an
+ * unqualified <code>ExecutorService</code> injection point elsewhere in the deployment.
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.FIELD, ElementType.PARAMETER, ElementType.TYPE})
+public @interface AsyncExecutor {
+}
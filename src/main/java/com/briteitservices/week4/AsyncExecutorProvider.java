@@ -0,0 +1,54 @@
+package com.briteitservices.week4;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+/**
+ * The executor used by asynchronous endpoints for blocking work, so that it does not tie up the web server's
+ * worker threads.
+ * <p/>
+ * The pool and its queue are bounded (by the <code>async.threads</code> and <code>async.queue</code> system
+ * properties), and work is rejected with a {@link java.util.concurrent.RejectedExecutionException} once both are
+ * full, so that callers can shed load rather than queueing without limit.
+ */
+@ApplicationScoped
+public class AsyncExecutorProvider {
+
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_QUEUE = 100;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        int threads = Integer.getInteger("async.threads", DEFAULT_THREADS);
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Integer.getInteger("async.queue", DEFAULT_QUEUE)),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Produces
+    @Singleton
+    @AsyncExecutor
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+}
@@ -0,0 +1,22 @@
+package com.briteitservices.week4;
+
+import com.briteitservices.week4.serialization.SerializedObjectCache;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+@ApplicationScoped
+public class SerializedObjectCacheProvider {
+
+    /**
+     * The size of the cache in bytes of encoded JSON, can be overridden with the
+     * <code>serialization.cache.bytes</code> system property
+     */
+    private static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    @Produces
+    @Singleton
+    public SerializedObjectCache create() {
+        return new SerializedObjectCache(Long.getLong("serialization.cache.bytes", DEFAULT_MAX_BYTES));
+    }
+}
@@ -8,4 +8,18 @@ import javax.ws.rs.core.Application;
  */
 @ApplicationPath("/rest")
 public class WebAppApplication extends Application {
+
+    /**
+     * @return The application path, with a leading slash and no trailing one
+     */
+    public static String getPath() {
+        String path = WebAppApplication.class.getAnnotation(ApplicationPath.class).value();
+        if (path.endsWith("/*")) {
+            path = path.substring(0, path.length() - 2);
+        }
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path.startsWith("/") ? path : "/" + path;
+    }
 }
@@ -0,0 +1,66 @@
+package com.briteitservices.week4.assets;
+
+import com.briteitservices.week4.WebAppApplication;
+import io.undertow.server.HandlerWrapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.servlet.ServletExtension;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.FilterMappingInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.WebResourceCollection;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletContext;
+
+/**
+ * Serves the static assets of the deployment from memory, see {@link StaticAssetHandler}.
+ * <p/>
+ * This is disabled in development mode (when <code>development.path</code> is set), where the assets are served
+ * from the sources so they can change.
+ * <p/>
+ * Anything under the JAX-RS application path, or that a declared request filter or security constraint applies
+ * to, is left to the servlet chain.
+ */
+public class StaticAssetExtension implements ServletExtension {
+
+    /**
+     * The name Undertow gives the servlet that serves static files
+     */
+    private static final String DEFAULT_SERVLET = "default";
+
+    @Override
+    public void handleDeployment(final DeploymentInfo deploymentInfo, final ServletContext servletContext) {
+        if (System.getProperty("development.path") != null) {
+            return;
+        }
+        deploymentInfo.addInitialHandlerChainWrapper(new HandlerWrapper() {
+            @Override
+            public HttpHandler wrap(HttpHandler handler) {
+                //the filters and constraints are final once the handler chain is built
+                return new StaticAssetHandler(handler, deploymentInfo.getResourceManager(), servletContext, excludedPatterns(deploymentInfo));
+            }
+        });
+    }
+
+    private static List<String> excludedPatterns(DeploymentInfo deploymentInfo) {
+        List<String> patterns = new ArrayList<>();
+        patterns.add(WebAppApplication.getPath() + "/*");
+        for (FilterMappingInfo mapping : deploymentInfo.getFilterMappings()) {
+            if (mapping.getDispatcher() != DispatcherType.REQUEST) {
+                continue;
+            }
+            if (mapping.getMappingType() == FilterMappingInfo.MappingType.URL) {
+                patterns.add(mapping.getMapping());
+            } else if (mapping.getMapping().equals(DEFAULT_SERVLET) || mapping.getMapping().equals("*")) {
+                patterns.add("/*");
+            }
+        }
+        for (SecurityConstraint constraint : deploymentInfo.getSecurityConstraints()) {
+            for (WebResourceCollection collection : constraint.getWebResourceCollections()) {
+                patterns.addAll(collection.getUrlPatterns());
+            }
+        }
+        return patterns;
+    }
+}
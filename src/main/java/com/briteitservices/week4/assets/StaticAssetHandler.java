@@ -0,0 +1,280 @@
+package com.briteitservices.week4.assets;
+
+import com.briteitservices.week4.serialization.AcceptEncoding;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.util.ETag;
+import io.undertow.util.ETagUtils;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ServletContext;
+import org.jboss.logging.Logger;
+
+/**
+ * Serves static assets from direct buffers, with a gzip variant.
+ * <p/>
+ * Each asset gets a strong entity tag from a hash of its content. Fingerprinted files (with a hex hash in the
+ * name, e.g. <code>app.3f2a9c1d.js</code>) never change, so they are cached by clients for a year, anything else
+ * has to be revalidated. If a precompressed <code>.gz</code> file is deployed next to an asset it is used as the
+ * gzip variant.
+ * <p/>
+ * The deployment does not change while it is running, so every asset is loaded from the resource listing when
+ * the handler is created and never reloaded, a redeployment creates a new handler. Requests for anything else are
+ * passed on without touching the resource manager, so probes for missing files cost a map lookup. Files that are
+ * too large to hold in memory, that are only found in jars (<code>META-INF/resources</code>), or that are not
+ * listed, are also passed on and served by the default servlet.
+ * <p/>
+ * This runs before the servlet chain, so nothing under <code>WEB-INF</code> or <code>META-INF</code> is loaded
+ * (matched without regard to case, as the servlet container does), nor anything matched by one of the given URL
+ * patterns, which should cover every filter and security constraint that applies to static files.
+ */
+public class StaticAssetHandler implements HttpHandler {
+
+    private static final Logger log = Logger.getLogger(StaticAssetHandler.class);
+
+    private static final int MAX_SIZE = 1024 * 1024;
+    private static final String WELCOME_FILE = "/index.html";
+    private static final String[] FORBIDDEN = {"/WEB-INF/", "/META-INF/"};
+    private static final Pattern FINGERPRINTED = Pattern.compile(".*[.-][0-9a-fA-F]{8,}\\.[^./]+$");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+    private static final String GZIP = "gzip";
+
+    private final HttpHandler next;
+    private final ResourceManager resourceManager;
+    private final ServletContext servletContext;
+    private final Collection<String> excludedPatterns;
+    /**
+     * Every asset by path, this is not modified once the handler is created
+     */
+    private final Map<String, Asset> assets = new HashMap<>();
+
+    /**
+     * @param excludedPatterns Servlet URL patterns for paths that must go through the servlet chain
+     */
+    public StaticAssetHandler(HttpHandler next, ResourceManager resourceManager, ServletContext servletContext, Collection<String> excludedPatterns) {
+        this.next = next;
+        this.resourceManager = resourceManager;
+        this.servletContext = servletContext;
+        this.excludedPatterns = excludedPatterns;
+        try {
+            Resource root = resourceManager.getResource("/");
+            if (root != null && root.isDirectory()) {
+                index(root, "/");
+            }
+            Asset welcome = assets.get(WELCOME_FILE);
+            if (welcome != null && !isExcluded("/", excludedPatterns)) {
+                assets.put("/", welcome);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load the static assets", e);
+        }
+        log.debugf("Serving %s static assets from memory", assets.size());
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (!exchange.getRequestMethod().equals(Methods.GET) && !exchange.getRequestMethod().equals(Methods.HEAD)) {
+            next.handleRequest(exchange);
+            return;
+        }
+        String path = exchange.getRelativePath();
+        Asset asset = assets.get(path.isEmpty() ? "/" : path);
+        if (asset == null) {
+            next.handleRequest(exchange);
+        } else {
+            serve(exchange, asset);
+        }
+    }
+
+    private void index(Resource directory, String directoryPath) throws IOException {
+        for (Resource resource : directory.list()) {
+            String path = directoryPath + resource.getName();
+            if (resource.isDirectory()) {
+                if (!isForbidden(path + "/")) {
+                    index(resource, path + "/");
+                }
+            } else if (!isForbidden(path) && !isExcluded(path, excludedPatterns)) {
+                Asset asset = load(path, resource);
+                if (asset != null) {
+                    assets.put(path, asset);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true for anything under <code>WEB-INF</code> or <code>META-INF</code>, in any case
+     */
+    static boolean isForbidden(String path) {
+        for (String forbidden : FORBIDDEN) {
+            if (path.regionMatches(true, 0, forbidden, 0, forbidden.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param path     The request path
+     * @param patterns Servlet URL patterns
+     * @return true if any of the patterns match the path
+     */
+    static boolean isExcluded(String path, Collection<String> patterns) {
+        for (String pattern : patterns) {
+            if (pattern.equals("/") || pattern.equals("/*")) {
+                //the default servlet, which is what serves static files
+                return true;
+            } else if (pattern.isEmpty()) {
+                if (path.equals("/")) {
+                    return true;
+                }
+            } else if (pattern.endsWith("/*")) {
+                String prefix = pattern.substring(0, pattern.length() - 2);
+                if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                    return true;
+                }
+            } else if (pattern.startsWith("*.")) {
+                if (path.endsWith(pattern.substring(1))) {
+                    return true;
+                }
+            } else if (pattern.equals(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void serve(HttpServerExchange exchange, Asset asset) {
+        HeaderMap headers = exchange.getResponseHeaders();
+        boolean gzip = asset.gzip != null && AcceptEncoding.acceptsGzip(exchange.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING));
+        ETag etag = gzip ? asset.gzipETag : asset.etag;
+        if (asset.gzip != null) {
+            headers.put(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+        }
+        headers.put(Headers.ETAG, etag.toString());
+        headers.put(Headers.CACHE_CONTROL, asset.cacheControl);
+        if (!ETagUtils.handleIfNoneMatch(exchange, etag, false)) {
+            exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            exchange.endExchange();
+            return;
+        }
+        if (asset.contentType != null) {
+            headers.put(Headers.CONTENT_TYPE, asset.contentType);
+        }
+        if (gzip) {
+            headers.put(Headers.CONTENT_ENCODING, GZIP);
+        }
+        ByteBuffer body = (gzip ? asset.gzip : asset.content).duplicate();
+        headers.put(Headers.CONTENT_LENGTH, body.remaining());
+        if (exchange.getRequestMethod().equals(Methods.HEAD)) {
+            exchange.endExchange();
+        } else {
+            exchange.getResponseSender().send(body);
+        }
+    }
+
+    /**
+     * @return The asset, or null if it is too large
+     */
+    private Asset load(String path, Resource resource) throws IOException {
+        Long length = resource.getContentLength();
+        if (length == null || length > MAX_SIZE) {
+            return null;
+        }
+        byte[] content = read(resource);
+        String contentType = servletContext.getMimeType(resource.getName());
+        String cacheControl = FINGERPRINTED.matcher(path).matches() ? IMMUTABLE : REVALIDATE;
+
+        byte[] gzip = null;
+        Resource precompressed = resourceManager.getResource(path + ".gz");
+        if (precompressed != null && !precompressed.isDirectory()) {
+            gzip = read(precompressed);
+        } else if (isCompressible(contentType)) {
+            gzip = compress(content);
+            //not worth it
+            if (gzip.length > content.length * 9 / 10) {
+                gzip = null;
+            }
+        }
+        return new Asset(content, gzip, contentType, cacheControl);
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType != null && (contentType.startsWith("text/")
+                || contentType.contains("javascript")
+                || contentType.contains("json")
+                || contentType.contains("xml"));
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = resource.getUrl().openStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return new BigInteger(1, MessageDigest.getInstance("SHA-1").digest(bytes)).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class Asset {
+
+        private final ByteBuffer content;
+        private final ByteBuffer gzip;
+        private final ETag etag;
+        private final ETag gzipETag;
+        private final String contentType;
+        private final String cacheControl;
+
+        Asset(byte[] content, byte[] gzip, String contentType, String cacheControl) {
+            this.content = direct(content);
+            this.gzip = gzip == null ? null : direct(gzip);
+            String hash = hash(content);
+            //the gzip variant is a different representation, so it has its own tag
+            this.etag = new ETag(false, hash);
+            this.gzipETag = new ETag(false, hash + "-gzip");
+            this.contentType = contentType;
+            this.cacheControl = cacheControl;
+        }
+    }
+}
@@ -2,90 +2,302 @@ package com.briteitservices.week4.development;
 
 import io.undertow.server.handlers.resource.FileResourceManager;
 import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceChangeEvent;
 import io.undertow.server.handlers.resource.ResourceChangeListener;
 import io.undertow.server.handlers.resource.ResourceManager;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jboss.logging.Logger;
 
 /**
+ * Serves resources straight from the project sources, so changes show up without a redeploy.
+ * <p/>
+ * Resources found in the sources are cached. For resources of the delegate only that they are not in the sources
+ * is cached, the delegate is still asked for them, and misses are not cached at all, so requests for files that do
+ * not exist cannot grow the cache. The source directories are watched with a {@link WatchService}, and any change
+ * clears the cache and is passed on to the registered {@link ResourceChangeListener}s.
+ *
  * @author Stuart Douglas
  */
 public class DevelopmentResourceManager implements ResourceManager {
 
+    private static final Logger log = Logger.getLogger(DevelopmentResourceManager.class);
+
+    /**
+     * Directories that never contain sources, and can be large
+     */
+    private static final Set<String> PRUNED = new HashSet<>(Arrays.asList("target", "node_modules", "bower_components"));
+
+    /**
+     * Cached for paths that are not in the sources but are found by the delegate
+     */
+    private static final Object DELEGATED = new Object();
+
     private final List<FileResourceManager> fileResourceManagers = new ArrayList<>();
+    private final List<Path> roots = new ArrayList<>();
     private final ResourceManager delegate;
+    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+    /**
+     * Incremented before the cache is cleared, so a lookup that raced with a change does not leave a stale entry
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final List<ResourceChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<WatchKey, Path> watched = new ConcurrentHashMap<>();
+    private final WatchService watchService;
 
     public DevelopmentResourceManager(final String basePath, ResourceManager delegate) {
         this.delegate = delegate;
-        Path path = Paths.get(basePath);
+        Path base = Paths.get(basePath);
+        Queue<Path> found = new ConcurrentLinkedQueue<>();
+        ForkJoinPool.commonPool().invoke(new ScanTask(base, found));
+        //the scan order is not deterministic
+        List<Path> sorted = new ArrayList<>(found);
+        Collections.sort(sorted);
+        for (Path dir : sorted) {
+            roots.add(dir);
+            fileResourceManagers.add(new FileResourceManager(dir.toFile(), 1024));
+        }
 
         try {
-            Files.walkFileTree(path, new FileVisitor<Path>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (!dir.toString().contains("target")) {
-                        if (dir.getFileName().toString().equals("resources") && dir.getParent().getFileName().toString().equals("META-INF")) {
-                            fileResourceManagers.add(new FileResourceManager(dir.toFile(), 1024));
-                        } else if (dir.getFileName().toString().equals("webapp") && dir.getParent().getFileName().toString().equals("main")) {
-                            fileResourceManagers.add(new FileResourceManager(dir.toFile(), 1024));
-                        }
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+            watchService = base.getFileSystem().newWatchService();
         } catch (IOException e) {
-            new RuntimeException(e);
+            throw new RuntimeException("Could not watch the resources in " + basePath, e);
+        }
+        for (Path root : roots) {
+            watchTree(root);
+        }
+        Thread watcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "development-resource-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static boolean isResourceRoot(Path dir) {
+        Path parent = dir.getParent();
+        if (parent == null || parent.getFileName() == null) {
+            return false;
         }
+        String name = dir.getFileName().toString();
+        String parentName = parent.getFileName().toString();
+        return (name.equals("resources") && parentName.equals("META-INF"))
+                || (name.equals("webapp") && parentName.equals("main"));
+    }
+
+    private static boolean isPruned(Path dir) {
+        String name = dir.getFileName().toString();
+        return PRUNED.contains(name) || name.startsWith(".");
     }
 
     @Override
     public Resource getResource(String path) throws IOException {
+        Object cached = cache.get(path);
+        if (cached == DELEGATED) {
+            return delegate.getResource(path);
+        } else if (cached != null) {
+            return (Resource) cached;
+        }
+        long start = generation.get();
+        Resource found = findInSources(path);
+        if (found != null) {
+            cached = found;
+        } else {
+            found = delegate.getResource(path);
+            if (found == null) {
+                return null;
+            }
+            cached = DELEGATED;
+        }
+        cache.put(path, cached);
+        if (generation.get() != start) {
+            //the cache may have been cleared before the put, the lookup may have missed the change
+            cache.remove(path, cached);
+        }
+        return found;
+    }
+
+    private Resource findInSources(String path) throws IOException {
         for (FileResourceManager rm : fileResourceManagers) {
             Resource res = rm.getResource(path);
             if (res != null) {
                 return res;
             }
         }
-        return delegate.getResource(path);
+        return null;
     }
 
     @Override
     public boolean isResourceChangeListenerSupported() {
-        return false;
+        return true;
     }
 
     @Override
     public void registerResourceChangeListener(ResourceChangeListener listener) {
+        listeners.add(listener);
     }
 
     @Override
     public void removeResourceChangeListener(ResourceChangeListener listener) {
+        listeners.remove(listener);
     }
 
     @Override
     public void close() throws IOException {
+        watchService.close();
+        for (FileResourceManager rm : fileResourceManagers) {
+            rm.close();
+        }
         delegate.close();
     }
+
+    /**
+     * Registers a directory and everything under it with the watch service.
+     */
+    private void watchTree(Path dir) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    watched.put(key, dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warnf(e, "Could not watch %s, changes will not be picked up", dir);
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = watched.get(key);
+            List<ResourceChangeEvent> changes = new ArrayList<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (dir == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    continue;
+                }
+                Path file = dir.resolve((Path) event.context());
+                ResourceChangeEvent.Type type;
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    type = ResourceChangeEvent.Type.ADDED;
+                    if (Files.isDirectory(file)) {
+                        watchTree(file);
+                    }
+                } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    type = ResourceChangeEvent.Type.REMOVED;
+                } else {
+                    type = ResourceChangeEvent.Type.MODIFIED;
+                }
+                changes.add(new ResourceChangeEvent(resourcePath(file), type));
+            }
+            if (!key.reset()) {
+                watched.remove(key);
+            }
+            //a new file can hide one in a later root, so the whole cache is cleared rather than single entries
+            generation.incrementAndGet();
+            cache.clear();
+            if (!changes.isEmpty()) {
+                for (ResourceChangeListener listener : listeners) {
+                    try {
+                        listener.handleChanges(changes);
+                    } catch (RuntimeException e) {
+                        log.errorf(e, "Resource change listener %s failed", listener);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The path of the file relative to the root it is in, as it would be requested
+     */
+    private String resourcePath(Path file) {
+        for (Path root : roots) {
+            if (file.startsWith(root)) {
+                StringBuilder ret = new StringBuilder();
+                for (Path part : root.relativize(file)) {
+                    ret.append('/').append(part.toString());
+                }
+                return ret.toString();
+            }
+        }
+        return file.toString();
+    }
+
+    /**
+     * Finds the resource roots under a directory, scanning subdirectories in parallel.
+     */
+    private static final class ScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final Queue<Path> found;
+
+        ScanTask(Path dir, Queue<Path> found) {
+            this.dir = dir;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (isResourceRoot(dir)) {
+                //resource roots are not nested
+                found.add(dir);
+                return;
+            }
+            List<ScanTask> tasks = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                for (Path child : children) {
+                    if (Files.isDirectory(child) && !Files.isSymbolicLink(child) && !isPruned(child)) {
+                        tasks.add(new ScanTask(child, found));
+                    }
+                }
+            } catch (IOException e) {
+                log.debugf(e, "Could not scan %s", dir);
+                return;
+            }
+            invokeAll(tasks);
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package com.briteitservices.week4.endpoint;
+
+import com.briteitservices.week4.AsyncExecutor;
+import com.briteitservices.week4.model.User;
+import com.briteitservices.week4.repository.UserProjections;
+import com.briteitservices.week4.serialization.SerializedObject;
+import com.briteitservices.week4.serialization.SerializedObjectCache;
+import com.briteitservices.week4.serialization.SerializedView;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Asynchronous versions of the {@link UserEndpoint} reads.
+ * <p/>
+ * The database work runs on the bounded executor from {@link com.briteitservices.week4.AsyncExecutorProvider},
+ * so the request thread is released while it waits. If the executor is full, or the work takes longer than
+ * {@link #TIMEOUT_SECONDS}, the request fails with <code>503 Service Unavailable</code>.
+ * <p/>
+ * The request scoped entity manager is not available on the executor, so each task uses its own. Lists are
+ * always paged, as the whole table is only streamed by the synchronous endpoint.
+ */
+@Path("/async/user")
+@ApplicationScoped
+public class AsyncUserEndpoint {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    @Inject
+    @AsyncExecutor
+    private ExecutorService executor;
+
+    @Inject
+    private SerializedObjectCache cache;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * See {@link UserEndpoint#get(Integer, Integer, String)}, a page of {@link UserEndpoint#DEFAULT_LIMIT} users
+     * is returned if no limit is given.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public void get(@QueryParam("after") Integer after, @QueryParam("limit") Integer limit, @QueryParam("fields") String fields,
+                    @Suspended AsyncResponse response) {
+        final SerializedView<User> view = UserEndpoint.view(fields);
+        final int from = after == null ? 0 : after;
+        final int max = UserEndpoint.limit(limit);
+        submit(response, new Callable<Object>() {
+            @Override
+            public Object call() {
+                EntityManager entityManager = entityManagerFactory.createEntityManager();
+                try {
+                    return view.serializeTuples(UserProjections.findAfter(entityManager, view, from, max));
+                } finally {
+                    entityManager.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * See {@link UserEndpoint#get(int, String)}, cached users are returned without using the executor.
+     */
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void get(@PathParam("id") final int id, @QueryParam("fields") String fields, @Suspended AsyncResponse response) {
+        final SerializedView<User> view = UserEndpoint.view(fields);
+        SerializedObject<User> cached = cache.get(view, id);
+        if (cached != null) {
+            response.resume(cached);
+            return;
+        }
+        submit(response, new Callable<Object>() {
+            @Override
+            public Object call() {
+                long stamp = cache.getStamp();
+                EntityManager entityManager = entityManagerFactory.createEntityManager();
+                try {
+                    User user = entityManager.find(User.class, id);
+                    SerializedObject<User> serialized = view.serialize(user);
+                    if (serialized != null) {
+                        cache.put(view, id, user.getVersion(), serialized, stamp);
+                    }
+                    return serialized;
+                } finally {
+                    entityManager.close();
+                }
+            }
+        });
+    }
+
+    private void submit(final AsyncResponse response, final Callable<Object> task) {
+        final AtomicReference<Future<?>> future = new AtomicReference<>();
+        response.setTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        response.setTimeoutHandler(new TimeoutHandler() {
+            @Override
+            public void handleTimeout(AsyncResponse asyncResponse) {
+                Future<?> running = future.get();
+                if (running != null) {
+                    running.cancel(true);
+                }
+                asyncResponse.resume(unavailable());
+            }
+        });
+        try {
+            future.set(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        response.resume(task.call());
+                    } catch (Throwable e) {
+                        response.resume(e);
+                    }
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            response.resume(unavailable());
+        }
+    }
+
+    private static Response unavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.briteitservices.week4.endpoint;
+
+import com.briteitservices.week4.metrics.StatisticsRegistry;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.JsonObject;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Hibernate statistics, per endpoint and for the whole session factory. These are only collected when enabled,
+ * see {@link StatisticsRegistry}. This needs the <code>monitor</code> role, see <code>web.xml</code>.
+ */
+@Path("/diagnostics")
+@ApplicationScoped
+public class DiagnosticsEndpoint {
+
+    @Inject
+    private StatisticsRegistry statistics;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public JsonObject get() {
+        return statistics.toJson();
+    }
+
+    /**
+     * Resets the statistics, so a test run can be measured on its own.
+     */
+    @DELETE
+    public void clear() {
+        statistics.clear();
+    }
+}
@@ -0,0 +1,43 @@
+package com.briteitservices.week4.endpoint;
+
+import com.briteitservices.week4.metrics.MetricsRegistry;
+import com.briteitservices.week4.serialization.SerializedObjectCache;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Request and cache metrics in the Prometheus text format. This needs the <code>monitor</code> role, see
+ * <code>web.xml</code>.
+ */
+@Path("/metrics")
+@ApplicationScoped
+public class MetricsEndpoint {
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Inject
+    private SerializedObjectCache cache;
+
+    @GET
+    @Produces("text/plain; version=0.0.4; charset=utf-8")
+    public String get() {
+        StringBuilder out = new StringBuilder();
+        registry.writeTo(out);
+
+        MetricsRegistry.header(out, "serialization_cache_hits_total", "counter", "Serialized object cache hits");
+        MetricsRegistry.sample(out, "serialization_cache_hits_total", null, cache.getHits());
+        MetricsRegistry.header(out, "serialization_cache_misses_total", "counter", "Serialized object cache misses");
+        MetricsRegistry.sample(out, "serialization_cache_misses_total", null, cache.getMisses());
+        MetricsRegistry.header(out, "serialization_cache_evictions_total", "counter", "Serialized objects evicted to stay within the size limit");
+        MetricsRegistry.sample(out, "serialization_cache_evictions_total", null, cache.getEvictions());
+        MetricsRegistry.header(out, "serialization_cache_entries", "gauge", "Serialized objects in the cache");
+        MetricsRegistry.sample(out, "serialization_cache_entries", null, cache.getEntryCount());
+        MetricsRegistry.header(out, "serialization_cache_bytes", "gauge", "Estimated size of the serialized object cache");
+        MetricsRegistry.sample(out, "serialization_cache_bytes", null, cache.getBytes());
+        return out.toString();
+    }
+}
@@ -1,42 +1,240 @@
 package com.briteitservices.week4.endpoint;
 
 import com.briteitservices.week4.model.User;
+import com.briteitservices.week4.repository.UserProjections;
 import com.briteitservices.week4.repository.UserRepository;
 import com.briteitservices.week4.serialization.SerializedObject;
+import com.briteitservices.week4.serialization.SerializedObjectCache;
 import com.briteitservices.week4.serialization.SerializedView;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 @Path("/user")
 @Stateless
 @PermitAll
 public class UserEndpoint {
 
+    /**
+     * The version is only used for optimistic locking and by the {@link SerializedObjectCache}, it is not part of
+     * the API.
+     */
     private static final SerializedView<User> VIEW = SerializedView.builder(User.class)
+            .exclude("version")
             .build();
 
+    /**
+     * Used for imports, existing users are kept managed so updates are flushed without a merge.
+     */
+    private static final SerializedView<User> BATCH_VIEW = SerializedView.builder(User.class)
+            .setDetach(false)
+            .build();
+
+    /**
+     * Matches hibernate.jdbc.batch_size and the id allocation size.
+     */
+    private static final int BATCH_SIZE = 50;
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    private static final int EXPORT_BATCH_SIZE = 500;
+
     @Inject
     private UserRepository userRepository;
 
+    @Inject
+    private UserProjections userProjections;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    private SerializedObjectCache cache;
+
+    /**
+     * Without paging parameters every user is returned. The table is walked a batch at a time as the response
+     * is written, so memory use does not grow with the size of the table. As the full list is never held in
+     * memory its entity tag is derived from the database instead. The users are only loaded as the response is
+     * written, so if {@link com.briteitservices.week4.serialization.EntityTagFilter} finds a matching
+     * <code>If-None-Match</code> none are loaded at all.
+     * <p/>
+     * Pages are tagged from their content by the filter.
+     *
+     * @param after  Only return users with an id greater than this
+     * @param limit  The maximum number of users to return
+     * @param fields A comma separated list of the properties to return, all of them if not given
+     */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public SerializedObject<List<User>> get() {
-        List<User> users = userRepository.findAll();
-        return VIEW.serializeList(users);
+    public Response get(@QueryParam("after") Integer after, @QueryParam("limit") Integer limit, @QueryParam("fields") String fields) {
+        SerializedView<User> view = view(fields);
+        if (after == null && limit == null) {
+            Object[] version = userRepository.findListVersion();
+            String tag = "users-" + version[0] + "-" + version[1] + "-" + version[2];
+            if (view != VIEW) {
+                tag += "-" + String.join(".", view.getRequiredProperties());
+            }
+            return Response.ok(view.streamTuples(allUsers(view))).tag(new EntityTag(tag)).build();
+        }
+        List<Tuple> users = userProjections.findAfter(view, after == null ? 0 : after, limit(limit));
+        return Response.ok(view.serializeTuples(users)).build();
     }
 
+    /**
+     * Users are served from the {@link SerializedObjectCache} when possible, {@link com.briteitservices.week4.model.UserListener}
+     * evicts them when they change.
+     */
     @GET
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    public SerializedObject<User> get(@PathParam("id") int id) {
+    public SerializedObject<User> get(@PathParam("id") int id, @QueryParam("fields") String fields) {
+        SerializedView<User> view = view(fields);
+        SerializedObject<User> cached = cache.get(view, id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.getStamp();
         User user = userRepository.findBy(id);
-        return VIEW.serialize(user);
+        SerializedObject<User> serialized = view.serialize(user);
+        if (serialized != null) {
+            cache.put(view, id, user.getVersion(), serialized, stamp);
+        }
+        return serialized;
+    }
+
+    /**
+     * Looks a user up by name, if several share it the first by id is returned. This is not held in the
+     * {@link SerializedObjectCache}, the lookup is answered from the query and second level caches, see
+     * {@link UserRepository#get(String)}.
+     */
+    @GET
+    @Path("/name/{name}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public SerializedObject<User> getByName(@PathParam("name") String name, @QueryParam("fields") String fields) {
+        return view(fields).serialize(userRepository.get(name));
+    }
+
+    /**
+     * Creates or updates users in bulk. Users without an id are inserted, users with an id are updated.
+     * <p/>
+     * The body is read {@link #BATCH_SIZE} users at a time, and the persistence context is flushed and cleared
+     * after each batch, so the inserts are sent as JDBC batches and memory use stays flat however large the
+     * upload is.
+     *
+     * @param json A JSON array of users
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void batch(InputStream json) {
+        entityManager.joinTransaction();
+        BATCH_VIEW.deserializeList(json, BATCH_SIZE, new Consumer<User>() {
+
+            private int count;
+
+            @Override
+            public void accept(User user) {
+                if (user.getId() == null) {
+                    if (user.getCreated() == null) {
+                        user.setCreated(new Date());
+                    }
+                    entityManager.persist(user);
+                }
+                //the chunks line up with the batches, so the users a chunk refers to are still managed
+                if (++count % BATCH_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * @param fields The <code>fields</code> query parameter
+     * @return The view restricted to the requested fields
+     */
+    static SerializedView<User> view(String fields) {
+        if (fields == null) {
+            return VIEW;
+        }
+        try {
+            return VIEW.restrict(Arrays.asList(fields.split(",")));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    /**
+     * @param limit The <code>limit</code> query parameter
+     * @return The page size
+     */
+    static int limit(Integer limit) {
+        int max = limit == null ? DEFAULT_LIMIT : limit;
+        if (max < 1 || max > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return max;
+    }
+
+    /**
+     * Walks the user table in id order using keyset pagination. Only the properties in the view are loaded, as
+     * tuples, so nothing is added to the persistence context.
+     */
+    private Iterable<Tuple> allUsers(final SerializedView<User> view) {
+        return new Iterable<Tuple>() {
+            @Override
+            public Iterator<Tuple> iterator() {
+                return new Iterator<Tuple>() {
+
+                    private Iterator<Tuple> batch = Collections.emptyIterator();
+                    private int after = 0;
+                    private boolean last;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (!batch.hasNext() && !last) {
+                            List<Tuple> users = userProjections.findAfter(view, after, EXPORT_BATCH_SIZE);
+                            last = users.size() < EXPORT_BATCH_SIZE;
+                            if (!users.isEmpty()) {
+                                after = users.get(users.size() - 1).get(UserProjections.ID, Integer.class);
+                            }
+                            batch = users.iterator();
+                        }
+                        return batch.hasNext();
+                    }
+
+                    @Override
+                    public Tuple next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return batch.next();
+                    }
+                };
+            }
+        };
     }
 }
@@ -0,0 +1,44 @@
+package com.briteitservices.week4.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The totals for one endpoint.
+ */
+final class EndpointMetrics {
+
+    final LatencySummary duration = new LatencySummary();
+    final LatencySummary[] phases = new LatencySummary[Phase.values().length];
+    final LongAdder bytes = new LongAdder();
+    final LongAdder rows = new LongAdder();
+    final LongAdder allocated = new LongAdder();
+    final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+    EndpointMetrics() {
+        for (int i = 0; i < phases.length; ++i) {
+            phases[i] = new LatencySummary();
+        }
+        for (int i = 0; i < outcomes.length; ++i) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    void record(RequestMetrics request) {
+        outcomes[request.outcome.ordinal()].increment();
+        if (request.outcome == Outcome.ERROR) {
+            return;
+        }
+        duration.record(request.duration);
+        for (int i = 0; i < phases.length; ++i) {
+            //a request that never reached a phase should not pull its latency down
+            if (request.phaseMeasured[i]) {
+                phases[i].record(request.phaseNanos[i]);
+            }
+        }
+        bytes.add(request.bytes);
+        rows.add(request.rows);
+        if (request.allocated > 0) {
+            allocated.add(request.allocated);
+        }
+    }
+}
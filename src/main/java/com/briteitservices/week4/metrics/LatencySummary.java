@@ -0,0 +1,40 @@
+package com.briteitservices.week4.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A latency distribution, written as a Prometheus summary.
+ * <p/>
+ * Values are recorded into a {@link Recorder}, which does not lock, and are only moved into the cumulative
+ * histogram when the summary is written.
+ */
+final class LatencySummary {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram histogram = new Histogram(3);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private Histogram interval;
+
+    void record(long nanos) {
+        recorder.recordValue(Math.max(0, nanos));
+        count.increment();
+        sum.add(nanos);
+    }
+
+    synchronized void write(StringBuilder out, String name, String labels) {
+        interval = recorder.getIntervalHistogram(interval);
+        histogram.add(interval);
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ").append(sum.sum() / NANOS_PER_SECOND).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(count.sum()).append('\n');
+    }
+}
@@ -0,0 +1,52 @@
+package com.briteitservices.week4.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Priority;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+@Measured(Phase.QUERY)
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class MeasuredInterceptor {
+
+    private final ConcurrentMap<Method, Phase> phases = new ConcurrentHashMap<>();
+
+    @AroundInvoke
+    public Object measure(InvocationContext context) throws Exception {
+        long start = RequestMetrics.start();
+        try {
+            return context.proceed();
+        } finally {
+            if (start != RequestMetrics.NOT_MEASURED) {
+                Phase phase = phase(context.getMethod());
+                if (phase != null) {
+                    RequestMetrics.stop(phase, start);
+                }
+            }
+        }
+    }
+
+    /**
+     * The annotation is looked up on the method and then its declaring type, which for a DeltaSpike repository is
+     * the interface rather than the generated implementation.
+     */
+    private Phase phase(Method method) {
+        Phase phase = phases.get(method);
+        if (phase == null) {
+            Measured measured = method.getAnnotation(Measured.class);
+            if (measured == null) {
+                measured = method.getDeclaringClass().getAnnotation(Measured.class);
+            }
+            if (measured == null) {
+                return null;
+            }
+            phase = measured.value();
+            phases.putIfAbsent(method, phase);
+        }
+        return phase;
+    }
+}
@@ -0,0 +1,158 @@
+package com.briteitservices.week4.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.Path;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Measures each request to a resource method, see {@link RequestMetrics}. Endpoints are named by the HTTP method
+ * and path template, e.g. <code>GET /user/{id}</code>.
+ * <p/>
+ * This has the lowest priority, so the request filter runs first and the response filter runs last, after any
+ * filter that could remove the entity. The write is measured by the writer interceptor, which also completes the
+ * request, if there is no entity the response filter completes it. Requests that fail before either runs are
+ * completed by the {@link MetricsServletFilter}.
+ * <p/>
+ * When Hibernate statistics are enabled the request's statements and cache accesses are also counted, see
+ * {@link StatisticsRegistry}. The writer interceptor marks the start of the write, after which the query budget
+ * can no longer reject the request.
+ */
+@Provider
+@Priority(1)
+@ApplicationScoped
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String PROPERTY = RequestMetrics.class.getName();
+
+    private final ConcurrentMap<Method, String> paths = new ConcurrentHashMap<>();
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Inject
+    private StatisticsRegistry statisticsRegistry;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) {
+            return;
+        }
+        requestContext.setProperty(PROPERTY, RequestMetrics.begin(requestContext.getMethod() + " " + path(method), statisticsRegistry.begin()));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        RequestMetrics metrics = (RequestMetrics) requestContext.getProperty(PROPERTY);
+        if (metrics == null) {
+            return;
+        }
+        metrics.status = responseContext.getStatus();
+        if (!responseContext.hasEntity()) {
+            requestContext.removeProperty(PROPERTY);
+            end(metrics, Outcome.forStatus(metrics.status));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        RequestMetrics metrics = (RequestMetrics) context.getProperty(PROPERTY);
+        if (metrics == null) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(PROPERTY);
+        CountingOutputStream out = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(out);
+        if (metrics.statistics != null) {
+            metrics.statistics.writing = true;
+        }
+        long start = System.nanoTime();
+        boolean written = false;
+        try {
+            context.proceed();
+            written = true;
+        } finally {
+            metrics.phaseNanos[Phase.WRITE.ordinal()] += System.nanoTime() - start;
+            metrics.phaseMeasured[Phase.WRITE.ordinal()] = true;
+            metrics.bytes = out.count;
+            end(metrics, written ? Outcome.forStatus(metrics.status) : Outcome.ERROR);
+        }
+    }
+
+    private void end(RequestMetrics metrics, Outcome outcome) {
+        if (metrics.end(outcome)) {
+            registry.record(metrics);
+        }
+    }
+
+    private String path(Method method) {
+        String path = paths.get(method);
+        if (path == null) {
+            StringBuilder ret = new StringBuilder();
+            for (Class<?> c = resourceInfo.getResourceClass(); c != null; c = c.getSuperclass()) {
+                //the resource class may be a proxy
+                Path classPath = c.getAnnotation(Path.class);
+                if (classPath != null) {
+                    append(ret, classPath.value());
+                    break;
+                }
+            }
+            Path methodPath = method.getAnnotation(Path.class);
+            if (methodPath != null) {
+                append(ret, methodPath.value());
+            }
+            path = ret.length() == 0 ? "/" : ret.toString();
+            paths.putIfAbsent(method, path);
+        }
+        return path;
+    }
+
+    private static void append(StringBuilder path, String part) {
+        for (String segment : part.split("/")) {
+            if (!segment.isEmpty()) {
+                path.append('/').append(segment);
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
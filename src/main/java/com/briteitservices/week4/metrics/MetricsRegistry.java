@@ -0,0 +1,115 @@
+package com.briteitservices.week4.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Request metrics for each endpoint, written in the Prometheus text format.
+ * <p/>
+ * Requests are counted by outcome. The timings, sizes and allocations only include requests that produced a
+ * response, those of a request that failed part way through would skew them.
+ */
+@ApplicationScoped
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    @Inject
+    private StatisticsRegistry statisticsRegistry;
+
+    /**
+     * Records a completed request, and its Hibernate statistics if they were collected.
+     */
+    void record(RequestMetrics request) {
+        EndpointMetrics metrics = endpoints.get(request.endpoint);
+        if (metrics == null) {
+            EndpointMetrics existing = endpoints.putIfAbsent(request.endpoint, metrics = new EndpointMetrics());
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        metrics.record(request);
+        if (request.statistics != null) {
+            statisticsRegistry.record(request);
+        }
+    }
+
+    public void writeTo(StringBuilder out) {
+        Map<String, EndpointMetrics> sorted = new TreeMap<>(endpoints);
+
+        header(out, "rest_requests_total", "counter", "Requests by outcome, the status class or error if the request failed without a response");
+        for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+            for (Outcome outcome : Outcome.values()) {
+                long count = entry.getValue().outcomes[outcome.ordinal()].sum();
+                if (count > 0) {
+                    sample(out, "rest_requests_total", endpointLabel(entry.getKey()) + ",outcome=\"" + outcome.label + "\"", count);
+                }
+            }
+        }
+
+        header(out, "rest_request_duration_seconds", "summary", "Time taken by requests, including writing the response");
+        for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+            entry.getValue().duration.write(out, "rest_request_duration_seconds", endpointLabel(entry.getKey()));
+        }
+
+        header(out, "rest_phase_duration_seconds", "summary", "Time taken by each phase of requests that reached it");
+        for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+            for (Phase phase : Phase.values()) {
+                String labels = endpointLabel(entry.getKey()) + ",phase=\"" + phase.label + "\"";
+                entry.getValue().phases[phase.ordinal()].write(out, "rest_phase_duration_seconds", labels);
+            }
+        }
+
+        header(out, "rest_response_bytes_total", "counter", "Response bytes written, after compression");
+        for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+            sample(out, "rest_response_bytes_total", endpointLabel(entry.getKey()), entry.getValue().bytes.sum());
+        }
+
+        header(out, "rest_serialized_rows_total", "counter", "Objects serialized");
+        for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+            sample(out, "rest_serialized_rows_total", endpointLabel(entry.getKey()), entry.getValue().rows.sum());
+        }
+
+        if (RequestMetrics.isAllocationSupported()) {
+            header(out, "rest_allocated_bytes_total", "counter", "Bytes allocated by the request thread");
+            for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+                sample(out, "rest_allocated_bytes_total", endpointLabel(entry.getKey()), entry.getValue().allocated.sum());
+            }
+        }
+    }
+
+    public static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * @param labels The labels, without braces, may be null
+     */
+    public static void sample(StringBuilder out, String name, String labels, Number value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String endpointLabel(String endpoint) {
+        StringBuilder ret = new StringBuilder("endpoint=\"");
+        for (int i = 0; i < endpoint.length(); ++i) {
+            char c = endpoint.charAt(i);
+            if (c == '\\' || c == '"') {
+                ret.append('\\').append(c);
+            } else if (c == '\n') {
+                ret.append("\\n");
+            } else {
+                ret.append(c);
+            }
+        }
+        return ret.append('"').toString();
+    }
+}
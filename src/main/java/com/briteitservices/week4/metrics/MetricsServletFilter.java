@@ -0,0 +1,93 @@
+package com.briteitservices.week4.metrics;
+
+import java.io.IOException;
+import javax.inject.Inject;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Completes the {@link RequestMetrics} of requests that the {@link MetricsFilter} could not, at the servlet
+ * dispatch boundary. This is registered for the JAX-RS application path by {@link MetricsServletListener}.
+ * <p/>
+ * When a resource method fails with an exception that is not mapped to a response, neither the response filter
+ * nor the writer interceptor runs, so the request is recorded here with the {@link Outcome#ERROR error} outcome.
+ * Async requests are completed on another thread, so they are only removed from the request thread here, and are
+ * recorded by an {@link AsyncListener} if they finish without a response being written.
+ */
+public class MetricsServletFilter implements Filter {
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            RequestMetrics metrics = RequestMetrics.detach();
+            if (metrics != null) {
+                if (request.isAsyncStarted()) {
+                    try {
+                        request.getAsyncContext().addListener(new Completion(metrics));
+                    } catch (IllegalStateException e) {
+                        //already completed on another thread, which recorded it
+                    }
+                } else {
+                    end(metrics, completed ? Outcome.forStatus(((HttpServletResponse) response).getStatus()) : Outcome.ERROR);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private void end(RequestMetrics metrics, Outcome outcome) {
+        if (metrics.end(outcome)) {
+            registry.record(metrics);
+        }
+    }
+
+    private final class Completion implements AsyncListener {
+
+        private final RequestMetrics metrics;
+
+        Completion(RequestMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            end(metrics, Outcome.forStatus(((HttpServletResponse) event.getSuppliedResponse()).getStatus()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            //completed with an error response afterwards
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            end(metrics, Outcome.ERROR);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
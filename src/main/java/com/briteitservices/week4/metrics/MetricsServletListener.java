@@ -0,0 +1,28 @@
+package com.briteitservices.week4.metrics;
+
+import com.briteitservices.week4.WebAppApplication;
+import java.util.EnumSet;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterRegistration;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Registers the {@link MetricsServletFilter} for the JAX-RS application path. This is done here rather than with
+ * an annotation so the path is not repeated.
+ */
+@WebListener
+public class MetricsServletListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        FilterRegistration.Dynamic filter = event.getServletContext().addFilter(MetricsServletFilter.class.getName(), MetricsServletFilter.class);
+        filter.setAsyncSupported(true);
+        filter.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), false, WebAppApplication.getPath() + "/*");
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+    }
+}
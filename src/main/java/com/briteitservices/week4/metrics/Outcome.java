@@ -0,0 +1,36 @@
+package com.briteitservices.week4.metrics;
+
+/**
+ * How a request ended. Requests are counted by endpoint and outcome.
+ */
+public enum Outcome {
+
+    INFORMATIONAL("1xx"),
+    SUCCESS("2xx"),
+    REDIRECTION("3xx"),
+    CLIENT_ERROR("4xx"),
+    SERVER_ERROR("5xx"),
+    /**
+     * Failed with an exception that was not mapped to a response, or while the response was being written
+     */
+    ERROR("error");
+
+    final String label;
+
+    Outcome(String label) {
+        this.label = label;
+    }
+
+    static Outcome forStatus(int status) {
+        if (status < 200) {
+            return INFORMATIONAL;
+        } else if (status < 300) {
+            return SUCCESS;
+        } else if (status < 400) {
+            return REDIRECTION;
+        } else if (status < 500) {
+            return CLIENT_ERROR;
+        }
+        return SERVER_ERROR;
+    }
+}
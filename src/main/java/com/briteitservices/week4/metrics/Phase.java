@@ -0,0 +1,26 @@
+package com.briteitservices.week4.metrics;
+
+import java.util.Locale;
+
+/**
+ * The parts of a request that are timed separately.
+ * <p/>
+ * The phases can overlap, a streamed response is queried and serialized while it is written.
+ */
+public enum Phase {
+
+    /**
+     * Database queries, see {@link Measured}
+     */
+    QUERY,
+    /**
+     * Building the JSON of a {@link com.briteitservices.week4.serialization.SerializedObject} in memory
+     */
+    SERIALIZE,
+    /**
+     * Writing the response body, including compression
+     */
+    WRITE;
+
+    final String label = name().toLowerCase(Locale.ENGLISH);
+}
@@ -0,0 +1,18 @@
+package com.briteitservices.week4.metrics;
+
+import javax.ejb.ApplicationException;
+
+/**
+ * Thrown when a request executes more statements than the query budget allows, usually because of lazy loading
+ * in a loop. This is an application exception so that it is not wrapped by the EJB container, and the
+ * transaction is rolled back. It is answered by the {@link QueryBudgetExceededMapper}.
+ */
+@ApplicationException(rollback = true)
+public class QueryBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QueryBudgetExceededException(String endpoint, int queryBudget) {
+        super(endpoint + " exceeded the query budget of " + queryBudget + " statements");
+    }
+}
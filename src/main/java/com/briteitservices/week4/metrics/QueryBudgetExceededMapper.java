@@ -0,0 +1,27 @@
+package com.briteitservices.week4.metrics;
+
+import javax.json.Json;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+import org.jboss.logging.Logger;
+
+/**
+ * Rejected requests are answered with <code>503 Service Unavailable</code>, and the reason as JSON, rather than a
+ * generic server error. The transaction has already been rolled back.
+ */
+@Provider
+public class QueryBudgetExceededMapper implements ExceptionMapper<QueryBudgetExceededException> {
+
+    private static final Logger log = Logger.getLogger(QueryBudgetExceededMapper.class);
+
+    @Override
+    public Response toResponse(QueryBudgetExceededException exception) {
+        log.warn(exception.getMessage());
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(Json.createObjectBuilder().add("error", exception.getMessage()).build())
+                .build();
+    }
+}
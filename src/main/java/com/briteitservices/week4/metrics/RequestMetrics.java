@@ -0,0 +1,164 @@
+package com.briteitservices.week4.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The measurements of the request being handled by the current thread. The {@link MetricsFilter} starts one for
+ * each request, and the phases are added as they complete.
+ * <p/>
+ * Outside of a request the static methods do nothing beyond a thread local lookup, so they can be called from
+ * code that is also used elsewhere. Only the request thread is measured, work handed off to other threads (such
+ * as the async endpoints) only counts towards the total.
+ * <p/>
+ * The {@link MetricsServletFilter} removes the request from the thread when it leaves the servlet, and completes
+ * it if JAX-RS could not, so nothing is left on a pooled worker thread.
+ */
+public final class RequestMetrics {
+
+    static final long NOT_MEASURED = Long.MIN_VALUE;
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private static final boolean ALLOCATION_SUPPORTED;
+
+    static {
+        boolean supported;
+        try {
+            supported = Allocation.isSupported();
+        } catch (LinkageError | RuntimeException e) {
+            //not a HotSpot JVM, or com.sun.management is not visible to the deployment
+            supported = false;
+        }
+        ALLOCATION_SUPPORTED = supported;
+    }
+
+    final String endpoint;
+    /**
+     * Null unless Hibernate statistics are enabled
+     */
+    final RequestStatistics statistics;
+    final long started;
+    final Thread thread;
+    final long allocatedAtStart;
+    final long[] phaseNanos = new long[Phase.values().length];
+    final boolean[] phaseMeasured = new boolean[Phase.values().length];
+    private final AtomicBoolean ended = new AtomicBoolean();
+    long rows;
+    long bytes;
+    long allocated = -1;
+    long duration;
+    /**
+     * The response status, set by the {@link MetricsFilter} once it is known
+     */
+    int status;
+    Outcome outcome;
+
+    private RequestMetrics(String endpoint, RequestStatistics statistics) {
+        this.endpoint = endpoint;
+        this.statistics = statistics;
+        this.thread = Thread.currentThread();
+        this.allocatedAtStart = allocatedBytes();
+        this.started = System.nanoTime();
+    }
+
+    /**
+     * @return The start time to pass to {@link #stop(Phase, long)}
+     */
+    public static long start() {
+        return CURRENT.get() == null ? NOT_MEASURED : System.nanoTime();
+    }
+
+    /**
+     * Adds the time since {@link #start()} to a phase of the current request.
+     */
+    public static void stop(Phase phase, long start) {
+        if (start == NOT_MEASURED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        RequestMetrics current = CURRENT.get();
+        if (current != null) {
+            current.phaseNanos[phase.ordinal()] += elapsed;
+            current.phaseMeasured[phase.ordinal()] = true;
+        }
+    }
+
+    /**
+     * Counts rows serialized by the current request.
+     */
+    public static void rows(long count) {
+        RequestMetrics current = CURRENT.get();
+        if (current != null) {
+            current.rows += count;
+        }
+    }
+
+    static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    static boolean isAllocationSupported() {
+        return ALLOCATION_SUPPORTED;
+    }
+
+    static RequestMetrics begin(String endpoint, RequestStatistics statistics) {
+        RequestMetrics metrics = new RequestMetrics(endpoint, statistics);
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * Removes the request from the current thread without completing it.
+     *
+     * @return The request that was in progress on this thread, or null
+     */
+    static RequestMetrics detach() {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            CURRENT.remove();
+        }
+        return metrics;
+    }
+
+    /**
+     * Completes the measurements. The allocations are only known if this is the thread the request started on.
+     * An async request can be completed from two threads at once, only the first call has any effect.
+     *
+     * @return true if this call completed the request, and it should be recorded
+     */
+    boolean end(Outcome outcome) {
+        if (!ended.compareAndSet(false, true)) {
+            return false;
+        }
+        this.outcome = outcome;
+        duration = System.nanoTime() - started;
+        if (Thread.currentThread() == thread && allocatedAtStart >= 0) {
+            allocated = allocatedBytes() - allocatedAtStart;
+        }
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        return true;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION_SUPPORTED ? Allocation.current() : -1;
+    }
+
+    /**
+     * Kept separate so that the class is only loaded where it can be.
+     */
+    private static final class Allocation {
+
+        private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        static boolean isSupported() {
+            return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+        }
+
+        static long current() {
+            return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
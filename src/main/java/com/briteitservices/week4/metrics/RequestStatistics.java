@@ -0,0 +1,57 @@
+package com.briteitservices.week4.metrics;
+
+/**
+ * Hibernate activity of the request being handled by the current thread, collected by the
+ * {@link StatisticsSessionListener} and {@link StatisticsEntityListener} when statistics are enabled, see
+ * {@link StatisticsRegistry}.
+ * <p/>
+ * If the request has a query budget, executing a statement over the budget either throws a
+ * {@link QueryBudgetExceededException} or is logged when the request completes. Once the response is being
+ * written its status has been sent, so from then on it is only logged.
+ */
+public final class RequestStatistics {
+
+    private final int queryBudget;
+    private final boolean reject;
+
+    long statements;
+    long batches;
+    long entityLoads;
+    long cacheHits;
+    long cacheMisses;
+    long cachePuts;
+    long flushes;
+    /**
+     * Set by the {@link MetricsFilter} when the response starts being written
+     */
+    boolean writing;
+    boolean rejected;
+
+    RequestStatistics(int queryBudget, boolean reject) {
+        this.queryBudget = queryBudget;
+        this.reject = reject;
+    }
+
+    /**
+     * @return The statistics of the current request, or null if there are none
+     */
+    static RequestStatistics current() {
+        RequestMetrics metrics = RequestMetrics.current();
+        return metrics == null ? null : metrics.statistics;
+    }
+
+    void statementExecuted(String endpoint) {
+        if (++statements > queryBudget && queryBudget > 0 && reject && !writing) {
+            rejected = true;
+            throw new QueryBudgetExceededException(endpoint, queryBudget);
+        }
+    }
+
+    boolean isOverBudget() {
+        return queryBudget > 0 && statements > queryBudget;
+    }
+
+    int getQueryBudget() {
+        return queryBudget;
+    }
+}
@@ -0,0 +1,18 @@
+package com.briteitservices.week4.metrics;
+
+import javax.persistence.PostLoad;
+
+/**
+ * Counts the entities loaded by the current request, whether from the database or the second level cache. This
+ * is a default entity listener, see <code>META-INF/orm.xml</code>.
+ */
+public class StatisticsEntityListener {
+
+    @PostLoad
+    public void loaded(Object entity) {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            ++statistics.entityLoads;
+        }
+    }
+}
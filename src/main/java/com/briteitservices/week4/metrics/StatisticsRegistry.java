@@ -0,0 +1,169 @@
+package com.briteitservices.week4.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.jboss.logging.Logger;
+
+/**
+ * Per request Hibernate statistics, aggregated by endpoint.
+ * <p/>
+ * This is opt-in, requests are only measured while Hibernate statistics are enabled, which is off by default. They
+ * are enabled with <code>hibernate.generate_statistics</code> (build with <code>-Pdiagnostics</code>), or at
+ * runtime through {@link Statistics#setStatisticsEnabled(boolean)}.
+ * <p/>
+ * The <code>statistics.query.budget</code> system property sets the number of statements a request may execute,
+ * requests over the budget are logged. If <code>statistics.query.budget.reject</code> is true they fail with a
+ * {@link QueryBudgetExceededException} instead. Streamed responses execute statements as they are written, after
+ * the status has been sent, so those are only logged.
+ */
+@ApplicationScoped
+public class StatisticsRegistry {
+
+    private static final Logger log = Logger.getLogger(StatisticsRegistry.class);
+
+    private static final int QUERY_BUDGET = Integer.getInteger("statistics.query.budget", 0);
+    private static final boolean REJECT = Boolean.getBoolean("statistics.query.budget.reject");
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private final ConcurrentMap<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    private void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public boolean isEnabled() {
+        return statistics.isStatisticsEnabled();
+    }
+
+    /**
+     * @return Statistics for a new request, or null if they are disabled
+     */
+    RequestStatistics begin() {
+        return isEnabled() ? new RequestStatistics(QUERY_BUDGET, REJECT) : null;
+    }
+
+    void record(RequestMetrics request) {
+        RequestStatistics statistics = request.statistics;
+        if (statistics.isOverBudget() && !statistics.rejected) {
+            log.warnf("%s executed %d statements, the query budget is %d", request.endpoint, statistics.statements, statistics.getQueryBudget());
+        }
+        EndpointStatistics endpoint = endpoints.get(request.endpoint);
+        if (endpoint == null) {
+            EndpointStatistics existing = endpoints.putIfAbsent(request.endpoint, endpoint = new EndpointStatistics());
+            if (existing != null) {
+                endpoint = existing;
+            }
+        }
+        endpoint.record(statistics);
+    }
+
+    public void clear() {
+        endpoints.clear();
+        statistics.clear();
+    }
+
+    public JsonObject toJson() {
+        JsonObjectBuilder ret = Json.createObjectBuilder()
+                .add("enabled", isEnabled())
+                .add("queryBudget", QUERY_BUDGET)
+                .add("rejectOverBudget", REJECT);
+        JsonObjectBuilder byEndpoint = Json.createObjectBuilder();
+        for (Map.Entry<String, EndpointStatistics> entry : new TreeMap<>(endpoints).entrySet()) {
+            byEndpoint.add(entry.getKey(), entry.getValue().toJson());
+        }
+        ret.add("endpoints", byEndpoint);
+
+        long cacheHits = statistics.getSecondLevelCacheHitCount();
+        long cacheMisses = statistics.getSecondLevelCacheMissCount();
+        long queryCacheHits = statistics.getQueryCacheHitCount();
+        long queryCacheMisses = statistics.getQueryCacheMissCount();
+        JsonObjectBuilder global = Json.createObjectBuilder()
+                .add("since", statistics.getStartTime())
+                .add("statementsPrepared", statistics.getPrepareStatementCount())
+                .add("queries", statistics.getQueryExecutionCount())
+                .add("queryMaxTime", statistics.getQueryExecutionMaxTime())
+                .add("entityLoads", statistics.getEntityLoadCount())
+                .add("entityFetches", statistics.getEntityFetchCount())
+                .add("collectionLoads", statistics.getCollectionLoadCount())
+                .add("collectionFetches", statistics.getCollectionFetchCount())
+                .add("secondLevelCacheHits", cacheHits)
+                .add("secondLevelCacheMisses", cacheMisses)
+                .add("secondLevelCachePuts", statistics.getSecondLevelCachePutCount())
+                .add("secondLevelCacheHitRatio", ratio(cacheHits, cacheMisses))
+                .add("queryCacheHits", queryCacheHits)
+                .add("queryCacheMisses", queryCacheMisses)
+                .add("queryCachePuts", statistics.getQueryCachePutCount())
+                .add("queryCacheHitRatio", ratio(queryCacheHits, queryCacheMisses));
+        ret.add("sessionFactory", global);
+        return ret.build();
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    private static final class EndpointStatistics {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder entityLoads = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+        private final LongAdder cachePuts = new LongAdder();
+        private final LongAdder flushes = new LongAdder();
+        private final LongAdder overBudget = new LongAdder();
+
+        void record(RequestStatistics request) {
+            requests.increment();
+            statements.add(request.statements);
+            maxStatements.accumulate(request.statements);
+            batches.add(request.batches);
+            entityLoads.add(request.entityLoads);
+            cacheHits.add(request.cacheHits);
+            cacheMisses.add(request.cacheMisses);
+            cachePuts.add(request.cachePuts);
+            flushes.add(request.flushes);
+            if (request.isOverBudget()) {
+                overBudget.increment();
+            }
+        }
+
+        JsonObject toJson() {
+            long requests = this.requests.sum();
+            long statements = this.statements.sum();
+            return Json.createObjectBuilder()
+                    .add("requests", requests)
+                    .add("statements", statements)
+                    .add("statementsPerRequest", requests == 0 ? 0 : (double) statements / requests)
+                    .add("maxStatements", maxStatements.get())
+                    .add("batches", batches.sum())
+                    .add("entityLoads", entityLoads.sum())
+                    .add("cacheHits", cacheHits.sum())
+                    .add("cacheMisses", cacheMisses.sum())
+                    .add("cachePuts", cachePuts.sum())
+                    .add("flushes", flushes.sum())
+                    .add("overBudget", overBudget.sum())
+                    .build();
+        }
+    }
+}
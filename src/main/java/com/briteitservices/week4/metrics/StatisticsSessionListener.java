@@ -0,0 +1,57 @@
+package com.briteitservices.week4.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Counts the statements and cache accesses of each session into the {@link RequestStatistics} of the current
+ * request. This is registered for every session with <code>hibernate.session.events.auto</code>, and does
+ * nothing outside of a request or when statistics are disabled.
+ */
+public class StatisticsSessionListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null && metrics.statistics != null) {
+            metrics.statistics.statementExecuted(metrics.endpoint);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            ++statistics.batches;
+        }
+    }
+
+    @Override
+    public void cachePutEnd() {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            ++statistics.cachePuts;
+        }
+    }
+
+    @Override
+    public void cacheGetEnd(boolean hit) {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            if (hit) {
+                ++statistics.cacheHits;
+            } else {
+                ++statistics.cacheMisses;
+            }
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            ++statistics.flushes;
+        }
+    }
+}
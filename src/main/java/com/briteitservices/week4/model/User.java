@@ -1,26 +1,41 @@
 package com.briteitservices.week4.model;
 
 import java.util.Date;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
+/**
+ * Users are held in the second level cache. The Infinispan region factory only supports transactional caching for
+ * entities that change.
+ */
 @Entity
 @Table(name = "user", schema = "public")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
+@EntityListeners(UserListener.class)
 public class User {
 
     private Integer id;
     private String name;
     private Date created;
+    private Integer version;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_seq")
+    @SequenceGenerator(name = "user_id_seq", schema = "public", sequenceName = "user_id_seq", allocationSize = 50)
     @Column(name = "id", unique = true, nullable = false)
     public Integer getId() {
         return this.id;
@@ -48,4 +63,14 @@ public class User {
     public void setCreated(Date created) {
         this.created = created;
     }
+
+    @Version
+    @Column(name = "version", nullable = false)
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
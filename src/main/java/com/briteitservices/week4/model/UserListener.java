@@ -0,0 +1,83 @@
+package com.briteitservices.week4.model;
+
+import com.briteitservices.week4.serialization.SerializedObjectCache;
+import java.util.HashSet;
+import java.util.Set;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import org.apache.deltaspike.core.api.provider.BeanProvider;
+
+/**
+ * Evicts changed users from the {@link SerializedObjectCache}.
+ * <p/>
+ * The user is evicted as soon as the change is flushed, and again once the transaction completes, as another
+ * request may have cached the old state while the transaction was still in progress. The ids changed by a
+ * transaction are collected in the transaction, so a bulk update registers a single synchronization.
+ */
+public class UserListener {
+
+    private static final String REGISTRY_NAME = "java:comp/TransactionSynchronizationRegistry";
+    /**
+     * The key of the changed ids in the resources of the transaction
+     */
+    private static final String CHANGED = UserListener.class.getName() + ".changed";
+
+    @PostUpdate
+    @PostRemove
+    public void changed(User user) {
+        final SerializedObjectCache cache = CacheHolder.CACHE;
+        if (cache == null) {
+            return;
+        }
+        Integer id = user.getId();
+        cache.invalidate(User.class, id);
+        TransactionSynchronizationRegistry registry = RegistryHolder.REGISTRY;
+        if (registry.getTransactionKey() == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Integer> changed = (Set<Integer>) registry.getResource(CHANGED);
+        if (changed == null) {
+            final Set<Integer> ids = changed = new HashSet<>();
+            registry.putResource(CHANGED, ids);
+            registry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    for (Integer changedId : ids) {
+                        cache.invalidate(User.class, changedId);
+                    }
+                }
+            });
+        }
+        changed.add(id);
+    }
+
+    /**
+     * Looked up on first use, rather than for every change
+     */
+    private static final class CacheHolder {
+
+        static final SerializedObjectCache CACHE = BeanProvider.getContextualReference(SerializedObjectCache.class, true);
+    }
+
+    private static final class RegistryHolder {
+
+        static final TransactionSynchronizationRegistry REGISTRY = lookup();
+
+        private static TransactionSynchronizationRegistry lookup() {
+            try {
+                return (TransactionSynchronizationRegistry) new InitialContext().lookup(REGISTRY_NAME);
+            } catch (NamingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.briteitservices.week4.repository;
+
+import com.briteitservices.week4.metrics.Measured;
+import com.briteitservices.week4.metrics.Phase;
+import com.briteitservices.week4.model.User;
+import com.briteitservices.week4.serialization.SerializedView;
+import java.util.List;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+/**
+ * User queries that only load the properties a {@link SerializedView} writes, for use with
+ * {@link SerializedView#serializeTuples(List)}. The results are not managed entities, so nothing is added to the
+ * persistence context.
+ */
+@ApplicationScoped
+@Measured(Phase.QUERY)
+public class UserProjections {
+
+    /**
+     * The alias of the id, which is always selected so it can be used for paging
+     */
+    public static final String ID = "id";
+
+    @Inject
+    private EntityManager entityManager;
+
+    /**
+     * Keyset pagination, the projected version of {@link UserRepository#findAfter(int, int)}.
+     */
+    public List<Tuple> findAfter(SerializedView<User> view, int after, int limit) {
+        return findAfter(entityManager, view, after, limit);
+    }
+
+    /**
+     * As {@link #findAfter(SerializedView, int, int)}, for use where the request scoped entity manager is not
+     * available.
+     */
+    public static List<Tuple> findAfter(EntityManager entityManager, SerializedView<User> view, int after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        List<Selection<?>> selections = view.getSelections(root);
+        if (!view.getRequiredProperties().contains(ID)) {
+            selections.add(root.get(ID).alias(ID));
+        }
+        query.multiselect(selections)
+                .where(cb.greaterThan(root.<Integer>get(ID), after))
+                .orderBy(cb.asc(root.get(ID)));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
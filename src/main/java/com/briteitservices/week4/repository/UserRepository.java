@@ -1,16 +1,44 @@
 package com.briteitservices.week4.repository;
 
+import com.briteitservices.week4.metrics.Measured;
+import com.briteitservices.week4.metrics.Phase;
 import com.briteitservices.week4.model.User;
+import java.util.List;
+import javax.persistence.QueryHint;
 import org.apache.deltaspike.data.api.EntityRepository;
+import org.apache.deltaspike.data.api.MaxResults;
 import org.apache.deltaspike.data.api.Query;
 import org.apache.deltaspike.data.api.QueryParam;
 import org.apache.deltaspike.data.api.Repository;
 import org.apache.deltaspike.data.api.SingleResultType;
+import org.hibernate.annotations.QueryHints;
 
 
 @Repository
+@Measured(Phase.QUERY)
 public interface UserRepository extends EntityRepository<User, Integer> {
 
-    @Query(value = "select u from User u where u.name=:name order by u.id", max = 1, singleResult = SingleResultType.OPTIONAL)
+    /**
+     * The result is held in the query cache, so a repeated lookup only loads the user, from the second level
+     * cache. Any change to the user table invalidates it.
+     */
+    @Query(value = "select u from User u where u.name=:name order by u.id", max = 1, singleResult = SingleResultType.OPTIONAL,
+            hints = @QueryHint(name = QueryHints.CACHEABLE, value = "true"))
     User get(@QueryParam("name") String name);
-}
\ No newline at end of file
+
+    /**
+     * Keyset pagination, returns the next page of users after the given id.
+     */
+    @Query(value = "select u from User u where u.id > :after order by u.id")
+    List<User> findAfter(@QueryParam("after") int after, @MaxResults int limit);
+
+    /**
+     * The number of users, the highest id and the sum of the versions. Any insert, update or delete changes at
+     * least one of these, so they can be used to validate a cached copy of the user list.
+     * <p/>
+     * As the query cache is invalidated by the same changes, the result can be cached too.
+     */
+    @Query(value = "select count(u), max(u.id), sum(u.version) from User u",
+            hints = @QueryHint(name = QueryHints.CACHEABLE, value = "true"))
+    Object[] findListVersion();
+}
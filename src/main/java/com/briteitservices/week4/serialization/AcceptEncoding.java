@@ -0,0 +1,49 @@
+package com.briteitservices.week4.serialization;
+
+/**
+ * Parsing of the <code>Accept-Encoding</code> request header, shared by the {@link SerializationProvider} and the
+ * static asset handler.
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * An explicit <code>gzip</code> entry takes precedence over <code>*</code>.
+     *
+     * @param acceptEncoding The <code>Accept-Encoding</code> header, may be null
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean any = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean isGzip = name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip");
+            if (!isGzip && !name.equals("*")) {
+                continue;
+            }
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; ++i) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (isGzip) {
+                gzip = accepted;
+            } else {
+                any = accepted;
+            }
+        }
+        return gzip != null ? gzip : any;
+    }
+}
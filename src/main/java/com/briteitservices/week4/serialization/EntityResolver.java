@@ -0,0 +1,100 @@
+package com.briteitservices.week4.serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import org.apache.deltaspike.core.api.provider.BeanProvider;
+
+/**
+ * Resolves the entities referenced by a JSON document during deserialization.
+ * <p/>
+ * The ids are collected up front, and then loaded with one <code>where id in (...)</code> query per entity class,
+ * rather than an {@link EntityManager#find(Class, Object)} per reference.
+ */
+final class EntityResolver {
+
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    private final String idProperty;
+    private final Map<Class<?>, Set<Object>> pending = new HashMap<>();
+    private final Map<Class<?>, Map<Object, Object>> loaded = new HashMap<>();
+    private EntityManager entityManager;
+
+    EntityResolver(String idProperty) {
+        this.idProperty = idProperty;
+    }
+
+    void add(Class<?> entityClass, Object id) {
+        Set<Object> ids = pending.get(entityClass);
+        if (ids == null) {
+            pending.put(entityClass, ids = new LinkedHashSet<>());
+        }
+        ids.add(id);
+    }
+
+    /**
+     * Loads all the entities that have been added since the last call.
+     */
+    void load() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        EntityManager em = getEntityManager();
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (Map.Entry<Class<?>, Set<Object>> entry : pending.entrySet()) {
+            Map<Object, Object> entities = loaded.get(entry.getKey());
+            if (entities == null) {
+                loaded.put(entry.getKey(), entities = new HashMap<>());
+            }
+            List<Object> ids = new ArrayList<>(entry.getValue());
+            for (int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY) {
+                for (Object entity : query(em, entry.getKey(), ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_QUERY)))) {
+                    entities.put(util.getIdentifier(entity), entity);
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    private <T> List<T> query(EntityManager em, Class<T> entityClass, List<Object> ids) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(entityClass);
+        Root<T> root = query.from(entityClass);
+        query.select(root).where(root.get(idProperty).in(ids));
+        return em.createQuery(query).getResultList();
+    }
+
+    /**
+     * Returns a loaded entity, falling back to {@link EntityManager#find(Class, Object)} if it was not part of
+     * a batch.
+     * <p/>
+     * Each loaded entity is only returned once. An id that is referenced again goes to
+     * {@link EntityManager#find(Class, Object)}, as it did before entities were loaded in bulk, so if the first
+     * copy was detached every reference gets its own copy, and changing one does not change the others.
+     */
+    <T> T find(Class<T> entityClass, Object id) {
+        Map<Object, Object> entities = loaded.get(entityClass);
+        if (entities != null) {
+            Object entity = entities.remove(id);
+            if (entity != null) {
+                return entityClass.cast(entity);
+            }
+        }
+        return getEntityManager().find(entityClass, id);
+    }
+
+    EntityManager getEntityManager() {
+        if (entityManager == null) {
+            entityManager = BeanProvider.getContextualReference(EntityManager.class, false);
+        }
+        return entityManager;
+    }
+}
@@ -0,0 +1,61 @@
+package com.briteitservices.week4.serialization;
+
+import java.io.IOException;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Adds an entity tag to successful <code>GET</code> responses that return a {@link SerializedObject}, and
+ * replaces the response with <code>304 Not Modified</code> if it matches <code>If-None-Match</code> (or
+ * <code>412 Precondition Failed</code> if <code>If-Match</code> does not match).
+ * <p/>
+ * The tag is a hash of the encoded JSON, see {@link SerializedObject#getEntityTag()}. Streaming objects cannot be
+ * hashed, so they are only handled if the resource has already set a tag.
+ * <p/>
+ * The gzip encoded form of a response is a different representation, so when the {@link SerializationProvider}
+ * is going to compress the response the tag is given a <code>-gzip</code> suffix.
+ */
+@Provider
+public class EntityTagFilter implements ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        String method = requestContext.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return;
+        }
+        if (responseContext.getStatus() != Response.Status.OK.getStatusCode()
+                || !(responseContext.getEntity() instanceof SerializedObject)) {
+            return;
+        }
+        SerializedObject<?> object = (SerializedObject<?>) responseContext.getEntity();
+        MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        EntityTag tag = responseContext.getEntityTag();
+        if (tag == null) {
+            String value = object.getEntityTag();
+            if (value == null) {
+                return;
+            }
+            tag = new EntityTag(value);
+        }
+        if (SerializationProvider.isCompressed(object, requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            tag = new EntityTag(tag.getValue() + "-gzip", tag.isWeak());
+        }
+        headers.putSingle(HttpHeaders.ETAG, tag);
+        headers.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        Response.ResponseBuilder failed = requestContext.getRequest().evaluatePreconditions(tag);
+        if (failed != null) {
+            //usually 304, but a failed If-Match is a 412
+            responseContext.setStatus(failed.build().getStatus());
+            responseContext.setEntity(null);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.briteitservices.week4.serialization;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Formats dates as <code>yyyy-MM-dd</code> or <code>yyyy-MM-dd HH:mm:ss</code>, and parses <code>yyyy-MM-dd</code>.
+ * <p/>
+ * This is immutable and thread safe. The digits are written directly using the {@link ZoneRules} of the zone, so
+ * formatting does not need a per thread {@link SimpleDateFormat}. The output is identical to
+ * {@link SimpleDateFormat}: dates where the two could differ (before 1900 or the first transition of the zone,
+ * from 2037 on in zones with transitions, or after the year 9999), and input that is not plain
+ * <code>yyyy-MM-dd</code>, are handed to a new {@link SimpleDateFormat}.
+ */
+final class JsonDateFormat {
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 1900-01-02T00:00:00Z, {@link TimeZone} ignores the transitions of a zone before 1900, so it disagrees with
+     * {@link ZoneRules} on earlier offsets. This is also well after the Gregorian cutover.
+     */
+    private static final long TIME_ZONE_MIN = -2208902400000L;
+    /**
+     * 2037-01-01T00:00:00Z, {@link TimeZone} only holds explicit transitions until 2037 and approximates later
+     * ones, so it can also disagree after this
+     */
+    private static final long TIME_ZONE_MAX = 2114380800000L;
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final boolean showDateTime;
+    /**
+     * {@link TimeZone} and {@link ZoneRules} also disagree on the offset before the first transition of a zone
+     * (local mean time), so earlier dates are left to {@link SimpleDateFormat}
+     */
+    private final long earliest;
+    private final long latest;
+
+    JsonDateFormat(ZoneId zone, boolean showDateTime) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.showDateTime = showDateTime;
+        long earliest = TIME_ZONE_MIN;
+        //getTransitions() copies the whole list, this is the first entry of it, or null if it is empty
+        ZoneOffsetTransition first = rules.nextTransition(Instant.MIN);
+        if (first != null) {
+            earliest = Math.max(earliest, first.getInstant().toEpochMilli());
+        }
+        this.earliest = earliest;
+        this.latest = rules.isFixedOffset() ? Long.MAX_VALUE : TIME_ZONE_MAX;
+    }
+
+    String format(Date date) {
+        long millis = date.getTime();
+        if (millis < earliest || millis >= latest) {
+            return legacy(showDateTime ? DATE_TIME_PATTERN : DATE_PATTERN).format(date);
+        }
+        ZoneOffset offset = rules.getOffset(Instant.ofEpochMilli(millis));
+        long seconds = Math.floorDiv(millis, 1000) + offset.getTotalSeconds();
+        long epochDay = Math.floorDiv(seconds, SECONDS_PER_DAY);
+
+        //civil from days, see http://howardhinnant.github.io/date_algorithms.html
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year > 9999) {
+            return legacy(showDateTime ? DATE_TIME_PATTERN : DATE_PATTERN).format(date);
+        }
+
+        char[] chars = new char[showDateTime ? 19 : 10];
+        write4(chars, 0, (int) year);
+        chars[4] = '-';
+        write2(chars, 5, month);
+        chars[7] = '-';
+        write2(chars, 8, day);
+        if (showDateTime) {
+            int secondOfDay = (int) Math.floorMod(seconds, SECONDS_PER_DAY);
+            chars[10] = ' ';
+            write2(chars, 11, secondOfDay / 3600);
+            chars[13] = ':';
+            write2(chars, 14, (secondOfDay / 60) % 60);
+            chars[16] = ':';
+            write2(chars, 17, secondOfDay % 60);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Parses a date, any text after the <code>yyyy-MM-dd</code> is ignored in the same way as
+     * {@link SimpleDateFormat#parse(String)}.
+     */
+    Date parse(String text) throws ParseException {
+        if (text.length() >= 10
+                && digits(text, 0, 4) && text.charAt(4) == '-'
+                && digits(text, 5, 7) && text.charAt(7) == '-'
+                && digits(text, 8, 10)
+                && (text.length() == 10 || !Character.isDigit(text.charAt(10)))) {
+            int year = number(text, 0, 4);
+            int month = number(text, 5, 7);
+            int day = number(text, 8, 10);
+            //anything SimpleDateFormat would treat leniently goes to the legacy path
+            if (month >= 1 && month <= 12 && day >= 1 && day <= LocalDate.of(year, month, 1).lengthOfMonth()) {
+                //like SimpleDateFormat, midnight in an overlap is the later of the two
+                long millis = LocalDate.of(year, month, day).atStartOfDay().atZone(zone).withLaterOffsetAtOverlap().toInstant().toEpochMilli();
+                if (millis >= earliest && millis < latest) {
+                    return new Date(millis);
+                }
+            }
+        }
+        return legacy(DATE_PATTERN).parse(text);
+    }
+
+    private SimpleDateFormat legacy(String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(TimeZone.getTimeZone(zone));
+        return format;
+    }
+
+    private static void write2(char[] chars, int pos, int value) {
+        chars[pos] = (char) ('0' + value / 10);
+        chars[pos + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void write4(char[] chars, int pos, int value) {
+        write2(chars, pos, value / 100);
+        write2(chars, pos + 2, value % 100);
+    }
+
+    private static boolean digits(String text, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(String text, int start, int end) {
+        int ret = 0;
+        for (int i = start; i < end; ++i) {
+            ret = ret * 10 + (text.charAt(i) - '0');
+        }
+        return ret;
+    }
+}
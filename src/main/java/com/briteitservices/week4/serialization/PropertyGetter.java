@@ -0,0 +1,156 @@
+package com.briteitservices.week4.serialization;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import org.jboss.logging.Logger;
+
+/**
+ * Reads a single property of an object.
+ * <p/>
+ * The getter is compiled into a {@link Function} via {@link LambdaMetafactory} when the view is built, so
+ * reading a property is a plain interface call instead of a {@link Method#invoke}. If the method cannot be
+ * linked (e.g. it is declared on a class that is not accessible from here) the reflective path is used.
+ * <p/>
+ * Primitive <code>int</code> and <code>long</code> getters are compiled to a {@link ToIntFunction} or
+ * {@link ToLongFunction} instead, so they can be read without boxing.
+ */
+abstract class PropertyGetter {
+
+    private static final Logger log = Logger.getLogger(PropertyGetter.class);
+
+    private final Method method;
+
+    PropertyGetter(Method method) {
+        this.method = method;
+    }
+
+    static PropertyGetter of(Method method) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(method);
+            if (method.getReturnType() == int.class) {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "applyAsInt",
+                        MethodType.methodType(ToIntFunction.class),
+                        MethodType.methodType(int.class, Object.class),
+                        handle,
+                        MethodType.methodType(int.class, method.getDeclaringClass()));
+                return new CompiledInt(method, (ToIntFunction<Object>) site.getTarget().invoke());
+            } else if (method.getReturnType() == long.class) {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "applyAsLong",
+                        MethodType.methodType(ToLongFunction.class),
+                        MethodType.methodType(long.class, Object.class),
+                        handle,
+                        MethodType.methodType(long.class, method.getDeclaringClass()));
+                return new CompiledLong(method, (ToLongFunction<Object>) site.getTarget().invoke());
+            }
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(method.getReturnType(), method.getDeclaringClass()).wrap());
+            return new Compiled(method, (Function<Object, Object>) site.getTarget().invoke());
+        } catch (Throwable e) {
+            log.debugf(e, "Could not compile getter %s, falling back to reflection", method);
+            return new Reflective(method);
+        }
+    }
+
+    abstract Object get(Object object) throws InvocationTargetException, IllegalAccessException;
+
+    /**
+     * Only valid for <code>int</code> properties, avoids boxing if the getter was compiled.
+     */
+    int getInt(Object object) throws InvocationTargetException, IllegalAccessException {
+        return (Integer) get(object);
+    }
+
+    /**
+     * Only valid for <code>long</code> properties, avoids boxing if the getter was compiled.
+     */
+    long getLong(Object object) throws InvocationTargetException, IllegalAccessException {
+        return (Long) get(object);
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    Class<?> getType() {
+        return method.getReturnType();
+    }
+
+    private static final class Compiled extends PropertyGetter {
+
+        private final Function<Object, Object> function;
+
+        Compiled(Method method, Function<Object, Object> function) {
+            super(method);
+            this.function = function;
+        }
+
+        @Override
+        Object get(Object object) {
+            return function.apply(object);
+        }
+    }
+
+    private static final class CompiledInt extends PropertyGetter {
+
+        private final ToIntFunction<Object> function;
+
+        CompiledInt(Method method, ToIntFunction<Object> function) {
+            super(method);
+            this.function = function;
+        }
+
+        @Override
+        Object get(Object object) {
+            return function.applyAsInt(object);
+        }
+
+        @Override
+        int getInt(Object object) {
+            return function.applyAsInt(object);
+        }
+    }
+
+    private static final class CompiledLong extends PropertyGetter {
+
+        private final ToLongFunction<Object> function;
+
+        CompiledLong(Method method, ToLongFunction<Object> function) {
+            super(method);
+            this.function = function;
+        }
+
+        @Override
+        Object get(Object object) {
+            return function.applyAsLong(object);
+        }
+
+        @Override
+        long getLong(Object object) {
+            return function.applyAsLong(object);
+        }
+    }
+
+    private static final class Reflective extends PropertyGetter {
+
+        Reflective(Method method) {
+            super(method);
+        }
+
+        @Override
+        Object get(Object object) throws InvocationTargetException, IllegalAccessException {
+            return getMethod().invoke(object);
+        }
+    }
+}
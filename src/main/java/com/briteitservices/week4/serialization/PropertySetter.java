@@ -0,0 +1,81 @@
+package com.briteitservices.week4.serialization;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import org.jboss.logging.Logger;
+
+/**
+ * Writes a single property of an object.
+ * <p/>
+ * The counterpart of {@link PropertyGetter}: the setter is compiled into a {@link BiConsumer} when the view
+ * is built, with {@link Method#invoke} as the fallback.
+ */
+abstract class PropertySetter {
+
+    private static final Logger log = Logger.getLogger(PropertySetter.class);
+
+    private final Method method;
+
+    PropertySetter(Method method) {
+        this.method = method;
+    }
+
+    static PropertySetter of(Method method) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]).wrap().changeReturnType(void.class));
+            return new Compiled(method, (BiConsumer<Object, Object>) site.getTarget().invoke());
+        } catch (Throwable e) {
+            log.debugf(e, "Could not compile setter %s, falling back to reflection", method);
+            return new Reflective(method);
+        }
+    }
+
+    abstract void set(Object object, Object value) throws InvocationTargetException, IllegalAccessException;
+
+    Method getMethod() {
+        return method;
+    }
+
+    Class<?> getType() {
+        return method.getParameterTypes()[0];
+    }
+
+    private static final class Compiled extends PropertySetter {
+
+        private final BiConsumer<Object, Object> consumer;
+
+        Compiled(Method method, BiConsumer<Object, Object> consumer) {
+            super(method);
+            this.consumer = consumer;
+        }
+
+        @Override
+        void set(Object object, Object value) {
+            consumer.accept(object, value);
+        }
+    }
+
+    private static final class Reflective extends PropertySetter {
+
+        Reflective(Method method) {
+            super(method);
+        }
+
+        @Override
+        void set(Object object, Object value) throws InvocationTargetException, IllegalAccessException {
+            getMethod().invoke(object, value);
+        }
+    }
+}
@@ -8,14 +8,7 @@ public class RestfulEnumProvider<T extends Enum & RestfulEnum> {
     private final T value;
 
     protected RestfulEnumProvider(Class<T> clazz, String value) {
-        T[] values = clazz.getEnumConstants();
-        T realValue = null;
-        for (T v : values) {
-            if (v.getLabel().equals(value)) {
-                realValue = v;
-                break;
-            }
-        }
+        T realValue = RestfulEnums.valueOf(clazz, value);
         if (realValue == null) {
             throw new RuntimeException("Not a valid enum label: " + value);
         }
@@ -0,0 +1,53 @@
+package com.briteitservices.week4.serialization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Label lookups for {@link RestfulEnum} enums.
+ * <p/>
+ * The labels of each enum class are indexed the first time they are needed, so converting between a label and
+ * a constant does not scan (and copy) the enum constants.
+ */
+final class RestfulEnums {
+
+    private static final ClassValue<Index> INDEX = new ClassValue<Index>() {
+        @Override
+        protected Index computeValue(Class<?> type) {
+            return new Index(type);
+        }
+    };
+
+    private RestfulEnums() {
+    }
+
+    /**
+     * @return The constant with the given label, or null if there is none
+     */
+    static <T> T valueOf(Class<T> type, String label) {
+        return type.cast(INDEX.get(type).constants.get(label));
+    }
+
+    static String getLabel(Enum<?> value) {
+        return INDEX.get(value.getDeclaringClass()).labels[value.ordinal()];
+    }
+
+    private static final class Index {
+
+        private final Map<String, Object> constants = new HashMap<>();
+        private final String[] labels;
+
+        Index(Class<?> type) {
+            Object[] values = type.getEnumConstants();
+            labels = new String[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                String label = ((RestfulEnum) values[i]).getLabel();
+                labels[i] = label;
+                //the first constant wins, as it did with a linear scan
+                if (!constants.containsKey(label)) {
+                    constants.put(label, values[i]);
+                }
+            }
+        }
+    }
+}
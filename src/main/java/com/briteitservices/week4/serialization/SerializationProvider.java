@@ -4,27 +4,42 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
 /**
+ * Responses are gzip compressed if the client accepts it. Objects smaller than the
+ * <code>serialization.gzip.threshold</code> system property (in bytes, 1024 by default) are sent as is, as
+ * compressing them saves little. Streaming objects are always compressed, as they are usually large.
+ *
  * @author Stuart Douglas
  */
 @Provider()
 @Produces("application/json")
 public class SerializationProvider implements MessageBodyWriter<SerializedObject<?>> {
 
-    private static final Charset UTF_8;
+    private static final JsonGeneratorFactory GENERATOR_FACTORY;
+    private static final int GZIP_THRESHOLD = Integer.getInteger("serialization.gzip.threshold", 1024);
+    private static final String GZIP = "gzip";
 
     static {
-        UTF_8 = Charset.forName("UTF-8");
+        GENERATOR_FACTORY = Json.createGeneratorFactory(Collections.<String, Object>emptyMap());
     }
 
+    @Context
+    private HttpHeaders headers;
+
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return SerializedObject.class.isAssignableFrom(type);
@@ -32,11 +47,58 @@ public class SerializationProvider implements MessageBodyWriter<SerializedObject
 
     @Override
     public long getSize(SerializedObject<?> serializedObject, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return -1;
+        if (serializedObject.isStreaming()) {
+            return -1;
+        }
+        //the encoded forms are cached, so writeTo does not encode them again
+        if (isCompressed(serializedObject, getAcceptEncoding())) {
+            return serializedObject.getGzipBytes().length;
+        }
+        return serializedObject.getBytes().length;
     }
 
     @Override
     public void writeTo(SerializedObject<?> serializedObject, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
-        entityStream.write(serializedObject.getSerialized().getBytes(UTF_8));
+        boolean compressed = isCompressed(serializedObject, getAcceptEncoding());
+        httpHeaders.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compressed) {
+            httpHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        if (serializedObject.isStreaming()) {
+            //the generator writes UTF-8, we flush rather than close it as the container owns the stream
+            GZIPOutputStream gzip = compressed ? new GZIPOutputStream(entityStream) : null;
+            JsonGenerator generator = GENERATOR_FACTORY.createGenerator(gzip == null ? entityStream : gzip);
+            serializedObject.writeTo(generator);
+            generator.flush();
+            if (gzip != null) {
+                gzip.finish();
+            }
+        } else if (compressed) {
+            entityStream.write(serializedObject.getGzipBytes());
+        } else {
+            entityStream.write(serializedObject.getBytes());
+        }
+    }
+
+    /**
+     * @param serializedObject The object being written
+     * @param acceptEncoding   The <code>Accept-Encoding</code> header of the request, may be null
+     * @return true if the object will be gzip compressed
+     */
+    static boolean isCompressed(SerializedObject<?> serializedObject, String acceptEncoding) {
+        return AcceptEncoding.acceptsGzip(acceptEncoding) && isCompressible(serializedObject);
+    }
+
+    /**
+     * @param serializedObject The object
+     * @return true if the object is compressed for clients that accept gzip
+     */
+    static boolean isCompressible(SerializedObject<?> serializedObject) {
+        return serializedObject.isStreaming() || serializedObject.getBytes().length >= GZIP_THRESHOLD;
+    }
+
+    private String getAcceptEncoding() {
+        //there are no headers when used outside of a request
+        return headers == null ? null : headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
     }
 }
@@ -1,8 +1,14 @@
 package com.briteitservices.week4.serialization;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
@@ -14,35 +20,76 @@ import javax.json.JsonObjectBuilder;
  */
 public class SerializedMapView {
 
-    private final Map<Class<?>, SerializedView> serializers;
+    private final Map<Class<?>, SerializedView<?>> serializers;
+    /**
+     * The serializer resolved for each runtime class, so the hierarchy is only walked once per class
+     */
+    private final ConcurrentMap<Class<?>, SerializedView<?>> resolved = new ConcurrentHashMap<>();
 
-    SerializedMapView(Map<Class<?>, SerializedView> serializers) {
+    SerializedMapView(Map<Class<?>, SerializedView<?>> serializers) {
         this.serializers = Collections.unmodifiableMap(serializers);
     }
 
-    public static SerializedMapView create(final SerializedView... view) {
-        Map<Class<?>, SerializedView> serializers = new HashMap<>();
-        for (SerializedView v : view) {
+    public static SerializedMapView create(final SerializedView<?>... view) {
+        Map<Class<?>, SerializedView<?>> serializers = new HashMap<>();
+        for (SerializedView<?> v : view) {
             serializers.put(v.getEntityClass(), v);
         }
         return new SerializedMapView(serializers);
     }
 
+    /**
+     * The raw return type is kept for existing callers.
+     */
+    @SuppressWarnings("rawtypes")
     public SerializedObject<Map> serialize(final Map<String, ?> map) {
         JsonObjectBuilder builder = Json.createObjectBuilder();
         for (Map.Entry<String, ?> entry : map.entrySet()) {
-            SerializedView serializer = null;
-            Class<?> type = entry.getValue().getClass();
-            while (type != null && type != Object.class && serializer == null) {
-                serializer = serializers.get(type);
-                type = type.getSuperclass();
-            }
-            if (serializer == null) {
-                throw new IllegalArgumentException("No serializer for " + entry.getValue().getClass());
-            }
-            builder.add(entry.getKey(), serializer.serializeToJson(entry.getValue(), Collections.emptyMap()));
+            SerializedView<?> serializer = getSerializer(entry.getValue().getClass());
+            builder.add(entry.getKey(), serializer.serializeToJson(entry.getValue(), Collections.<String, Object>emptyMap()));
         }
         JsonObject build = builder.build();
         return new SerializedObject<Map>(map, build);
     }
+
+    private SerializedView<?> getSerializer(Class<?> type) {
+        SerializedView<?> serializer = resolved.get(type);
+        if (serializer == null) {
+            serializer = resolve(type);
+            if (serializer == null) {
+                throw new IllegalArgumentException("No serializer for " + type);
+            }
+            resolved.putIfAbsent(type, serializer);
+        }
+        return serializer;
+    }
+
+    /**
+     * Finds the serializer for a class. The superclasses are searched first, so a view registered for the entity
+     * class is also used for its proxies, then the interfaces breadth first.
+     */
+    private SerializedView<?> resolve(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            SerializedView<?> serializer = serializers.get(c);
+            if (serializer != null) {
+                return serializer;
+            }
+        }
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        Set<Class<?>> seen = new HashSet<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Collections.addAll(queue, c.getInterfaces());
+        }
+        while (!queue.isEmpty()) {
+            Class<?> c = queue.poll();
+            if (seen.add(c)) {
+                SerializedView<?> serializer = serializers.get(c);
+                if (serializer != null) {
+                    return serializer;
+                }
+                Collections.addAll(queue, c.getInterfaces());
+            }
+        }
+        return null;
+    }
 }
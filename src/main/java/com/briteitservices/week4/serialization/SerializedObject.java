@@ -1,33 +1,210 @@
 package com.briteitservices.week4.serialization;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+import javax.json.Json;
 import javax.json.JsonStructure;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
 
 /**
  * A semi-serialized representation of an object
+ * <p/>
+ * The string and UTF-8 forms are only produced when they are first asked for, and are then cached. A streaming
+ * object holds a {@link StreamingWriter} instead of a JSON tree, and is only serialized when it is written out
+ * by the {@link SerializationProvider}. An object can also be created from JSON that has already been
+ * serialized, in which case the tree is only parsed if it is asked for.
  *
  * @author Stuart Douglas
  */
 public class SerializedObject<T> {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final JsonGeneratorFactory GENERATOR_FACTORY = Json.createGeneratorFactory(Collections.<String, Object>emptyMap());
+    private static final JsonWriterFactory WRITER_FACTORY = Json.createWriterFactory(Collections.<String, Object>emptyMap());
+
     private final T object;
-    private final String serialized;
-    private final JsonStructure jsonValue;
+    private final StreamingWriter writer;
+    private volatile JsonStructure jsonValue;
+    private volatile String serialized;
+    private volatile byte[] bytes;
+    private volatile byte[] gzipBytes;
+    private volatile String entityTag;
 
     SerializedObject(T object, JsonStructure jsonValue) {
         this.object = object;
-        this.serialized = jsonValue.toString();
         this.jsonValue = jsonValue;
+        this.writer = null;
+    }
+
+    SerializedObject(T object, StreamingWriter writer) {
+        this.object = object;
+        this.jsonValue = null;
+        this.writer = writer;
+    }
+
+    SerializedObject(T object, String serialized) {
+        this.object = object;
+        this.writer = null;
+        this.serialized = serialized;
+    }
+
+    /**
+     * An object that only has the encoded forms, as held by the {@link SerializedObjectCache}. There is no
+     * original object, so {@link #getObject()} returns null.
+     *
+     * @param gzipBytes The compressed form, or null to compress it if it is asked for
+     */
+    SerializedObject(byte[] bytes, byte[] gzipBytes, String entityTag) {
+        this.object = null;
+        this.writer = null;
+        this.bytes = bytes;
+        this.gzipBytes = gzipBytes;
+        this.entityTag = entityTag;
     }
 
     public T getObject() {
         return object;
     }
 
+    /**
+     * @return true if this object is serialized as it is written, rather than being held in memory
+     */
+    public boolean isStreaming() {
+        return writer != null;
+    }
+
+    /**
+     * Writes this object to the generator. For a streaming object this is where serialization actually happens.
+     *
+     * @param generator The generator
+     */
+    public void writeTo(JsonGenerator generator) {
+        if (writer != null) {
+            writer.write(generator);
+        } else {
+            generator.write(getJsonValue());
+        }
+    }
+
+    /**
+     * For a streaming object this serializes the whole object into memory each time, and should be avoided.
+     *
+     * @return The serialized JSON
+     */
     public String getSerialized() {
+        if (writer != null) {
+            StringWriter out = new StringWriter();
+            try (JsonGenerator generator = GENERATOR_FACTORY.createGenerator(out)) {
+                writer.write(generator);
+            }
+            return out.toString();
+        }
+        String serialized = this.serialized;
+        if (serialized == null) {
+            JsonStructure jsonValue = this.jsonValue;
+            //created from the encoded bytes there is no tree
+            this.serialized = serialized = jsonValue != null ? jsonValue.toString() : new String(bytes, UTF_8);
+        }
         return serialized;
     }
 
+    /**
+     * The UTF-8 encoded JSON. The returned array is shared and must not be modified.
+     * <p/>
+     * For a streaming object this serializes the whole object into memory each time, and should be avoided.
+     *
+     * @return The encoded JSON
+     */
+    public byte[] getBytes() {
+        if (writer != null) {
+            return getSerialized().getBytes(UTF_8);
+        }
+        byte[] bytes = this.bytes;
+        if (bytes == null) {
+            String serialized = this.serialized;
+            if (serialized != null) {
+                bytes = serialized.getBytes(UTF_8);
+            } else {
+                //encode straight from the tree, there is no need for the intermediate string
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (JsonWriter jsonWriter = WRITER_FACTORY.createWriter(out, UTF_8)) {
+                    jsonWriter.write(jsonValue);
+                }
+                bytes = out.toByteArray();
+            }
+            this.bytes = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * The gzip compressed form of {@link #getBytes()}. This is cached, so an object held in a cache is only
+     * compressed once. The returned array is shared and must not be modified.
+     *
+     * @return The compressed JSON
+     */
+    byte[] getGzipBytes() {
+        byte[] gzipBytes = this.gzipBytes;
+        if (gzipBytes == null) {
+            byte[] bytes = getBytes();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(bytes);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            gzipBytes = out.toByteArray();
+            if (writer == null) {
+                this.gzipBytes = gzipBytes;
+            }
+        }
+        return gzipBytes;
+    }
+
+    /**
+     * A 64 bit FNV-1a hash of the encoded JSON, used as a strong entity tag. This is computed once and cached.
+     *
+     * @return The entity tag, or null for a streaming object, which is never held in memory to be hashed
+     */
+    public String getEntityTag() {
+        if (writer != null) {
+            return null;
+        }
+        String entityTag = this.entityTag;
+        if (entityTag == null) {
+            byte[] bytes = getBytes();
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : bytes) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            this.entityTag = entityTag = Long.toHexString(hash) + "-" + Integer.toHexString(bytes.length);
+        }
+        return entityTag;
+    }
+
+    /**
+     * For a streaming object this serializes and re-parses the whole object, and should be avoided.
+     *
+     * @return The JSON tree
+     */
     public JsonStructure getJsonValue() {
+        if (writer != null) {
+            return Json.createReader(new StringReader(getSerialized())).read();
+        }
+        JsonStructure jsonValue = this.jsonValue;
+        if (jsonValue == null) {
+            //created from a string or the encoded bytes
+            this.jsonValue = jsonValue = Json.createReader(new StringReader(getSerialized())).read();
+        }
         return jsonValue;
     }
 }
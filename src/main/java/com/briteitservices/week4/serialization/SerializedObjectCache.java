@@ -0,0 +1,239 @@
+package com.briteitservices.week4.serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A least recently used cache of serialized entities, keyed by view and entity id.
+ * <p/>
+ * Only the encoded forms are kept, the entity and the JSON tree are not, and the size is bounded by the total
+ * length of those forms rather than the number of entries. The cache does not know when an entity changes, {@link #invalidate(Class, Object)} must be called whenever one is updated or
+ * removed, usually from an entity listener.
+ * <p/>
+ * To avoid caching a stale entity that was loaded while another transaction was changing it, the
+ * {@link #getStamp() stamp} must be read before the entity is loaded and passed to
+ * {@link #put(SerializedView, Object, long, SerializedObject, long)}. If anything was invalidated in the meantime
+ * the entry is not stored.
+ */
+public class SerializedObjectCache {
+
+    /**
+     * A rough allowance for the key, entry, entity tag and id index held alongside the encoded JSON
+     */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * The keys of the entries for each id, so an entity can be invalidated in every view. Views are only
+     * referenced by their entries, so short lived views (e.g. restricted views) can be collected once evicted.
+     */
+    private final Map<Object, List<Key>> keysById = new HashMap<>();
+    private long bytes;
+    private long stamp;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SerializedObjectCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The cached object, or null if the entity is not cached for this view. The object only holds the
+     * encoded JSON, {@link SerializedObject#getObject()} returns null.
+     */
+    public <T> SerializedObject<T> get(SerializedView<T> view, Object id) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(view, id));
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new SerializedObject<>(entry.bytes, entry.gzipBytes, entry.entityTag);
+    }
+
+    /**
+     * @return The current stamp, which must be read before the entity that is going to be cached is loaded
+     */
+    public synchronized long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Caches a serialized entity. Nothing is stored if an entity has been invalidated since the stamp was read,
+     * or if a newer version of the entity is already cached.
+     *
+     * @param view    The view the entity was serialized with
+     * @param id      The entity id
+     * @param version The entity version
+     * @param object  The serialized entity, which must not be streaming
+     * @param stamp   The value of {@link #getStamp()} from before the entity was loaded
+     */
+    public <T> void put(SerializedView<T> view, Object id, long version, SerializedObject<T> object, long stamp) {
+        if (object.isStreaming()) {
+            throw new IllegalArgumentException("Streaming objects cannot be cached");
+        }
+        //encode outside the lock, the compressed form is only kept if it would be used
+        byte[] json = object.getBytes();
+        byte[] gzipJson = SerializationProvider.isCompressible(object) ? object.getGzipBytes() : null;
+        String entityTag = object.getEntityTag();
+        long size = json.length + (gzipJson == null ? 0 : gzipJson.length) + ENTRY_OVERHEAD;
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            if (stamp != this.stamp) {
+                return;
+            }
+            Key key = new Key(view, id);
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                if (existing.version > version) {
+                    return;
+                }
+                bytes -= existing.size;
+            } else {
+                List<Key> keys = keysById.get(id);
+                if (keys == null) {
+                    keys = new ArrayList<>(2);
+                    keysById.put(id, keys);
+                }
+                keys.add(key);
+            }
+            entries.put(key, new Entry(json, gzipJson, entityTag, version, size));
+            bytes += size;
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Key, Entry> eldest = it.next();
+                it.remove();
+                bytes -= eldest.getValue().size;
+                removeKey(eldest.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes an entity from every view it is cached for.
+     *
+     * @param entityClass The entity class
+     * @param id          The entity id
+     */
+    public synchronized void invalidate(Class<?> entityClass, Object id) {
+        ++stamp;
+        List<Key> keys = keysById.get(id);
+        if (keys == null) {
+            return;
+        }
+        Iterator<Key> it = keys.iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            if (key.view.getEntityClass().isAssignableFrom(entityClass)) {
+                it.remove();
+                bytes -= entries.remove(key).size;
+            }
+        }
+        if (keys.isEmpty()) {
+            keysById.remove(id);
+        }
+    }
+
+    public synchronized void clear() {
+        ++stamp;
+        entries.clear();
+        keysById.clear();
+        bytes = 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return The estimated size of the cached entries in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private static final class Key {
+
+        private final SerializedView<?> view;
+        private final Object id;
+
+        Key(SerializedView<?> view, Object id) {
+            this.view = view;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return view == key.view && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(view) + id.hashCode();
+        }
+    }
+
+    private void removeKey(Key key) {
+        List<Key> keys = keysById.get(key.id);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysById.remove(key.id);
+        }
+    }
+
+    private static final class Entry {
+
+        private final byte[] bytes;
+        private final byte[] gzipBytes;
+        private final String entityTag;
+        private final long version;
+        private final long size;
+
+        Entry(byte[] bytes, byte[] gzipBytes, String entityTag, long version, long size) {
+            this.bytes = bytes;
+            this.gzipBytes = gzipBytes;
+            this.entityTag = entityTag;
+            this.version = version;
+            this.size = size;
+        }
+    }
+}
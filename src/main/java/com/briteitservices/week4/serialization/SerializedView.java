@@ -1,15 +1,20 @@
 package com.briteitservices.week4.serialization;
 
+import com.briteitservices.week4.metrics.Phase;
+import com.briteitservices.week4.metrics.RequestMetrics;
+import java.io.InputStream;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.text.DateFormat;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -17,18 +22,31 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
-import javax.json.JsonNumber;
+import javax.json.JsonBuilderFactory;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
 import javax.json.JsonString;
 import javax.json.JsonValue;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
 import javax.persistence.Entity;
-import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.Version;
-import org.apache.deltaspike.core.api.provider.BeanProvider;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Selection;
 import org.jboss.logging.Logger;
 
 /**
@@ -42,6 +60,10 @@ public class SerializedView<T> {
 
     private static final Logger log = Logger.getLogger(SerializedView.class);
 
+    /**
+     * @deprecated Views no longer use this, dates are written by {@link JsonDateFormat} in the zone of the view
+     */
+    @Deprecated
     public static final ThreadLocal<DateFormat> DATE_FORMAT = new ThreadLocal<DateFormat>() {
 
         @Override
@@ -51,6 +73,10 @@ public class SerializedView<T> {
         }
     };
 
+    /**
+     * @deprecated Views no longer use this, dates are written by {@link JsonDateFormat} in the zone of the view
+     */
+    @Deprecated
     public static final ThreadLocal<DateFormat> DATE_TIME_FORMAT = new ThreadLocal<DateFormat>() {
 
         @Override
@@ -62,36 +88,83 @@ public class SerializedView<T> {
 
     private static final String ID = "id";
 
+    /**
+     * {@link Json#createObjectBuilder()} looks up the provider every time, these are looked up once
+     */
+    private static final JsonBuilderFactory BUILDER_FACTORY = Json.createBuilderFactory(Collections.<String, Object>emptyMap());
+    private static final JsonGeneratorFactory GENERATOR_FACTORY = Json.createGeneratorFactory(Collections.<String, Object>emptyMap());
+    private static final JsonParserFactory PARSER_FACTORY = Json.createParserFactory(Collections.<String, Object>emptyMap());
+
+    /**
+     * The smallest number of elements serialized by each task when a list is serialized in parallel
+     */
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    /**
+     * The number of restricted views that are cached for each view
+     */
+    private static final int MAX_RESTRICTED_VIEWS = 64;
+
     private final Class<T> entityClass;
-    private final boolean defaultExclude;
     private final boolean forceEntityPropagation;
     private final boolean showDateTime;
+    private final ZoneId zone;
     private final boolean detach;
+    private final int parallelThreshold;
     private final Method createMethod;
-    private final Set<String> exclude = new LinkedHashSet<>();
-    private final Set<String> include = new LinkedHashSet<>();
-    private final Set<String> allSimple = new LinkedHashSet<>();
-    private final Map<String, SerializedView> includeCustom = new LinkedHashMap<>();
     private final Map<String, SerializedView> includeAdditional = new LinkedHashMap<>();
-    private final Map<String, Method> getters = new LinkedHashMap<>();
-    private final Map<String, Method> setters = new LinkedHashMap<>();
     private final boolean entity;
 
+    /**
+     * The simple properties that are written, in order. The view is immutable, so the include and exclude rules
+     * are applied once here rather than for every object.
+     */
+    private final ViewProperty[] serializedSimple;
+    private final ViewProperty[] deserializedSimple;
+    private final ViewProperty[] serializedCustom;
+    private final ViewProperty[] deserializedCustom;
+    private final Set<String> requiredProperties;
+    private final Set<String> properties;
+    private final ConcurrentMap<Set<String>, SerializedView<T>> restricted = new ConcurrentHashMap<>();
+    /**
+     * The codecs for values whose type is only known at runtime (nested, additional and map values), by class
+     */
+    private final ConcurrentMap<Class<?>, ValueCodec> codecs = new ConcurrentHashMap<>();
+
     private SerializedView(Builder<T> builder) {
         this.entityClass = builder.entityClass;
         this.forceEntityPropagation = builder.forceEntityPropagation;
         this.showDateTime = builder.showDateTime;
-        this.exclude.addAll(builder.exclude);
-        this.include.addAll(builder.include);
-        this.allSimple.addAll(builder.allSimple);
-        this.defaultExclude = builder.defaultExclude;
-        this.getters.putAll(builder.getters);
-        this.setters.putAll(builder.setters);
+        this.zone = builder.zone == null ? ZoneId.systemDefault() : builder.zone;
         this.detach = builder.detach;
+        this.parallelThreshold = builder.parallelThreshold;
         this.createMethod = builder.createMethod;
+
+        Set<String> simple = new LinkedHashSet<>();
+        if (builder.defaultExclude) {
+            simple.addAll(builder.include);
+        } else {
+            simple.addAll(builder.allSimple);
+            simple.removeAll(builder.exclude);
+        }
+        List<ViewProperty> simpleProperties = new ArrayList<>(simple.size());
+        for (String field : simple) {
+            simpleProperties.add(property(builder, field, null, showDateTime, zone));
+        }
+        List<ViewProperty> customProperties = new ArrayList<>(builder.includeCustom.size());
         for (Map.Entry<String, Builder> entry : builder.includeCustom.entrySet()) {
-            includeCustom.put(entry.getKey(), entry.getValue().build());
+            customProperties.add(property(builder, entry.getKey(), entry.getValue().build(), showDateTime, zone));
+        }
+        this.serializedSimple = withGetter(simpleProperties);
+        this.deserializedSimple = withSetter(simpleProperties);
+        this.serializedCustom = withGetter(customProperties);
+        this.deserializedCustom = withSetter(customProperties);
+        Set<String> required = new LinkedHashSet<>();
+        for (ViewProperty property : serializedSimple) {
+            required.add(property.name);
         }
+        this.requiredProperties = Collections.unmodifiableSet(required);
+        this.properties = propertyNames(serializedSimple, serializedCustom);
 
         for (Map.Entry<String, Builder> entry : builder.includeAdditional.entrySet()) {
             includeAdditional.put(entry.getKey(), entry.getValue().build());
@@ -99,10 +172,84 @@ public class SerializedView<T> {
         entity = entityClass.isAnnotationPresent(Entity.class);
     }
 
-    private static void serializeFieldValue(JsonObjectBuilder builder, String fieldName, SerializedView<?> view, Object value, boolean showDatetime) {
+    /**
+     * Creates a view that only writes some of the properties of another view, reusing its compiled properties.
+     */
+    private SerializedView(SerializedView<T> view, Set<String> fields) {
+        this.entityClass = view.entityClass;
+        this.forceEntityPropagation = view.forceEntityPropagation;
+        this.showDateTime = view.showDateTime;
+        this.zone = view.zone;
+        this.detach = view.detach;
+        this.parallelThreshold = view.parallelThreshold;
+        this.createMethod = view.createMethod;
+        this.includeAdditional.putAll(view.includeAdditional);
+        this.entity = view.entity;
+        this.serializedSimple = only(view.serializedSimple, fields);
+        this.serializedCustom = only(view.serializedCustom, fields);
+        this.deserializedSimple = only(view.deserializedSimple, fields);
+        this.deserializedCustom = only(view.deserializedCustom, fields);
+        this.requiredProperties = Collections.unmodifiableSet(propertyNames(serializedSimple, new ViewProperty[0]));
+        this.properties = propertyNames(serializedSimple, serializedCustom);
+    }
+
+    private static ViewProperty[] only(ViewProperty[] properties, Set<String> fields) {
+        List<ViewProperty> ret = new ArrayList<>(properties.length);
+        for (ViewProperty property : properties) {
+            if (fields.contains(property.name)) {
+                ret.add(property);
+            }
+        }
+        return ret.toArray(new ViewProperty[ret.size()]);
+    }
+
+    private static Set<String> propertyNames(ViewProperty[] simple, ViewProperty[] custom) {
+        Set<String> ret = new LinkedHashSet<>();
+        for (ViewProperty property : simple) {
+            ret.add(property.name);
+        }
+        for (ViewProperty property : custom) {
+            ret.add(property.name);
+        }
+        return ret;
+    }
+
+    private static ViewProperty property(Builder<?> builder, String field, SerializedView<?> view, boolean showDateTime, ZoneId zone) {
+        Method getter = builder.getters.get(field);
+        Method setter = builder.setters.get(field);
+        return new ViewProperty(field,
+                getter == null ? null : PropertyGetter.of(getter),
+                setter == null ? null : PropertySetter.of(setter),
+                view, showDateTime, zone);
+    }
+
+    private static ViewProperty[] withGetter(List<ViewProperty> properties) {
+        List<ViewProperty> ret = new ArrayList<>(properties.size());
+        for (ViewProperty property : properties) {
+            if (property.getter != null) {
+                ret.add(property);
+            }
+        }
+        return ret.toArray(new ViewProperty[ret.size()]);
+    }
+
+    private static ViewProperty[] withSetter(List<ViewProperty> properties) {
+        List<ViewProperty> ret = new ArrayList<>(properties.size());
+        for (ViewProperty property : properties) {
+            if (property.setter != null) {
+                ret.add(property);
+            }
+        }
+        return ret.toArray(new ViewProperty[ret.size()]);
+    }
+
+    /**
+     * Dates are written with the settings of this view, nested values with the given view.
+     */
+    private void serializeFieldValue(JsonObjectBuilder builder, String fieldName, SerializedView<?> view, Object value) {
         if (value != null) {
             if (isPrimitiveOrDateOrWrapper(value.getClass())) {
-                serializeSimple(builder, fieldName, value, showDatetime);
+                codec(value.getClass()).write(builder, fieldName, value);
             } else if (value instanceof List) {
                 builder.add(fieldName, view.serializeListToJson((List) value));
             } else if (value.getClass().isArray()) {
@@ -115,26 +262,16 @@ public class SerializedView<T> {
         }
     }
 
-    private static void serializeSimple(JsonObjectBuilder builder, String field, Object value, boolean showDatetime) {
-        if (value instanceof Integer) {
-            builder.add(field, (Integer) value);
-        } else if (value instanceof Long) {
-            builder.add(field, (Long) value);
-        } else if (value instanceof BigDecimal) {
-            builder.add(field, (BigDecimal) value);
-        } else if (value instanceof Date) {
-            if (showDatetime) {
-                builder.add(field, DATE_TIME_FORMAT.get().format(value));
-            } else {
-                builder.add(field, DATE_FORMAT.get().format(value));
+    private ValueCodec codec(Class<?> type) {
+        ValueCodec codec = codecs.get(type);
+        if (codec == null) {
+            codec = ValueCodec.forType(type, showDateTime, zone);
+            ValueCodec existing = codecs.putIfAbsent(type, codec);
+            if (existing != null) {
+                codec = existing;
             }
-        } else if (value instanceof Boolean) {
-            builder.add(field, (Boolean) value);
-        } else if (value instanceof RestfulEnum) {
-            builder.add(field, ((RestfulEnum) value).getLabel());
-        } else if (value != null) {
-            builder.add(field, value.toString());
         }
+        return codec;
     }
 
     public static <T> Builder<T> builder(Class<T> entityClass) {
@@ -180,24 +317,30 @@ public class SerializedView<T> {
     }
 
     public List<T> deserialize(JsonArray json) {
-        return deserialize(json, true);
+        EntityResolver resolver = new EntityResolver(ID);
+        collectIds(json, true, resolver);
+        resolver.load();
+        return deserialize(json, true, resolver);
     }
 
-    private List<T> deserialize(JsonArray json, boolean root) {
+    private List<T> deserialize(JsonArray json, boolean root, EntityResolver resolver) {
         List<T> ret = new ArrayList<>(json.size());
         for (JsonValue item : json) {
             if (item.getValueType() == JsonValue.ValueType.STRING) {
-                T value = (T) coerceToSimpleType(item, String.class);
+                T value = (T) ((JsonString) item).getString();
                 ret.add(value);
             } else {
-                ret.add(deserialize((JsonObject) item, root));
+                ret.add(deserialize((JsonObject) item, root, resolver));
             }
         }
         return ret;
     }
 
     public T deserialize(JsonObject json) {
-        return deserialize(json, true);
+        EntityResolver resolver = new EntityResolver(ID);
+        collectIds(json, true, resolver);
+        resolver.load();
+        return deserialize(json, true, resolver);
     }
 
     public T deserialize(String json) {
@@ -210,7 +353,123 @@ public class SerializedView<T> {
         return deserialize(parsed);
     }
 
-    private T deserialize(JsonObject json, boolean root) {
+    /**
+     * Deserializes a JSON array as it is read, handing each element to the consumer in order.
+     * <p/>
+     * Only one chunk of elements is held in memory at a time, rather than the whole text and tree. The entities
+     * a chunk refers to are loaded in bulk before any of its elements are handed over, so a consumer that clears
+     * the persistence context should do so at chunk boundaries.
+     *
+     * @param json      The JSON, the encoding is detected
+     * @param chunkSize The number of elements to read before they are deserialized
+     * @param consumer  Receives the deserialized elements
+     */
+    public void deserializeList(InputStream json, int chunkSize, Consumer<? super T> consumer) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        try (JsonParser parser = PARSER_FACTORY.createParser(json)) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array");
+            }
+            List<JsonValue> chunk = new ArrayList<>(chunkSize);
+            JsonParser.Event event;
+            while ((event = parser.next()) != JsonParser.Event.END_ARRAY) {
+                chunk.add(readValue(parser, event));
+                if (chunk.size() == chunkSize) {
+                    deserializeChunk(chunk, consumer);
+                    chunk.clear();
+                }
+            }
+            deserializeChunk(chunk, consumer);
+        }
+    }
+
+    private void deserializeChunk(List<JsonValue> chunk, Consumer<? super T> consumer) {
+        EntityResolver resolver = new EntityResolver(ID);
+        for (JsonValue item : chunk) {
+            if (item.getValueType() == JsonValue.ValueType.OBJECT) {
+                collectIds((JsonObject) item, true, resolver);
+            }
+        }
+        resolver.load();
+        for (JsonValue item : chunk) {
+            if (item.getValueType() == JsonValue.ValueType.STRING) {
+                consumer.accept((T) ((JsonString) item).getString());
+            } else {
+                consumer.accept(deserialize((JsonObject) item, true, resolver));
+            }
+        }
+    }
+
+    /**
+     * Reads the value that starts with the given event. JSON-P 1.0 parsers cannot return the current value, so
+     * it is rebuilt from the events.
+     */
+    private static JsonValue readValue(JsonParser parser, JsonParser.Event event) {
+        switch (event) {
+            case START_OBJECT:
+                JsonObjectBuilder object = BUILDER_FACTORY.createObjectBuilder();
+                while ((event = parser.next()) != JsonParser.Event.END_OBJECT) {
+                    String name = parser.getString();
+                    object.add(name, readValue(parser, parser.next()));
+                }
+                return object.build();
+            case START_ARRAY:
+                JsonArrayBuilder array = BUILDER_FACTORY.createArrayBuilder();
+                while ((event = parser.next()) != JsonParser.Event.END_ARRAY) {
+                    array.add(readValue(parser, event));
+                }
+                return array.build();
+            case VALUE_STRING:
+                //there is no public JsonString implementation, so wrap it in an array
+                return BUILDER_FACTORY.createArrayBuilder().add(parser.getString()).build().get(0);
+            case VALUE_NUMBER:
+                return BUILDER_FACTORY.createArrayBuilder().add(parser.getBigDecimal()).build().get(0);
+            case VALUE_TRUE:
+                return JsonValue.TRUE;
+            case VALUE_FALSE:
+                return JsonValue.FALSE;
+            case VALUE_NULL:
+                return JsonValue.NULL;
+            default:
+                throw new IllegalArgumentException("Unexpected " + event);
+        }
+    }
+
+    /**
+     * Collects the ids of all the entities the JSON refers to, following the same rules as deserialization, so
+     * they can be loaded in bulk rather than one at a time.
+     */
+    private void collectIds(JsonArray json, boolean root, EntityResolver resolver) {
+        for (JsonValue item : json) {
+            if (item.getValueType() == JsonValue.ValueType.OBJECT) {
+                collectIds((JsonObject) item, root, resolver);
+            }
+        }
+    }
+
+    private void collectIds(JsonObject json, boolean root, EntityResolver resolver) {
+        if (entity && json.containsKey(ID) && !json.isNull(ID)) {
+            resolver.add(entityClass, json.getInt(ID));
+            if (!root && !forceEntityPropagation) {
+                return;
+            }
+        }
+        for (ViewProperty property : deserializedCustom) {
+            JsonValue value = json.get(property.name);
+            if (value == null) {
+                continue;
+            }
+            if (value.getValueType() == JsonValue.ValueType.ARRAY) {
+                property.view.collectIds((JsonArray) value, false, resolver);
+            } else if (value.getValueType() == JsonValue.ValueType.OBJECT) {
+                property.view.collectIds((JsonObject) value, false, resolver);
+            }
+        }
+    }
+
+    private T deserialize(JsonObject json, boolean root, EntityResolver resolver) {
         try {
             T object = null;
             if (!entity) {
@@ -220,18 +479,17 @@ public class SerializedView<T> {
                     object = entityClass.newInstance();
                 }
             } else {
-                EntityManager em = BeanProvider.getContextualReference(EntityManager.class, false);
                 if (!json.keySet().contains(ID) || json.isNull(ID)) {
                     if (!entityClass.isInterface() && (entityClass.getModifiers() & Modifier.ABSTRACT) == 0) {
                         object = entityClass.newInstance();
                     }
                 } else {
-                    object = em.find(entityClass, json.getInt(ID));
+                    object = resolver.find(entityClass, json.getInt(ID));
                     if (object == null) {
                         throw new RuntimeException(entityClass + "entity with id " + json.get(ID) + " not found");
                     }
                     if (detach) {
-                        em.detach(object);
+                        resolver.getEntityManager().detach(object);
                     }
                     if (!root && !forceEntityPropagation) {
                         //we just load the object, we don't allow the user to change it
@@ -239,58 +497,34 @@ public class SerializedView<T> {
                     }
                 }
             }
-            if (defaultExclude) {
-                for (String field : include) {
-                    if (json.keySet().contains(field)) {
-                        Method setMethod = setters.get(field);
-                        if (setMethod != null) {
-                            setMethod.invoke(object, coerceToSimpleType(json.get(field), setMethod.getParameterTypes()[0]));
-                        }
-                    }
-                }
-            } else {
-                for (String field : allSimple) {
-                    if (exclude.contains(field)) {
-                        continue;
-                    }
-                    if (json.keySet().contains(field)) {
-                        Method setMethod = setters.get(field);
-                        if (setMethod != null) {
-                            setMethod.invoke(object, coerceToSimpleType(json.get(field), setMethod.getParameterTypes()[0]));
-                        }
-                    }
+            for (ViewProperty property : deserializedSimple) {
+                JsonValue value = json.get(property.name);
+                if (value != null) {
+                    property.setter.set(object, property.decoder.read(value));
                 }
             }
 
-            for (Map.Entry<String, SerializedView> entry : includeCustom.entrySet()) {
-                boolean present = json.keySet().contains(entry.getKey());
-                if (present && json.isNull(entry.getKey())) {
-                    Method setter = setters.get(entry.getKey());
-                    if (setter != null) {
-                        setter.invoke(object, new Object[]{null});
-                    }
-                } else if (present) {
-                    Method setter = setters.get(entry.getKey());
-                    if (setter != null) {
-                        if (List.class.isAssignableFrom(setter.getParameterTypes()[0])) {
-                            setter.invoke(object, entry.getValue().deserialize(json.getJsonArray(entry.getKey()), false));
-                        } else {
-                            JsonValue jsonValue = json.get(entry.getKey());
-                            JsonValue.ValueType valueType = jsonValue.getValueType();
-                            if (valueType == JsonValue.ValueType.STRING) {
-                                JsonString jsonString = json.getJsonString(entry.getKey());
-                                if (jsonString.getString().trim().isEmpty()) {
-                                    setter.invoke(object, new Object[]{null});
-                                } else {
-                                    log.error("JSON String: " + jsonString.getString());
-                                    throw new ClassCastException(entry.getKey() + " cannot be cast to an object.");
-                                }
-                            } else {
-                                JsonObject jsonObject = json.getJsonObject(entry.getKey());
-                                setter.invoke(object, entry.getValue().deserialize(jsonObject, false));
-                            }
-                        }
+            for (ViewProperty property : deserializedCustom) {
+                JsonValue jsonValue = json.get(property.name);
+                if (jsonValue == null) {
+                    continue;
+                }
+                PropertySetter setter = property.setter;
+                JsonValue.ValueType valueType = jsonValue.getValueType();
+                if (valueType == JsonValue.ValueType.NULL) {
+                    setter.set(object, null);
+                } else if (List.class.isAssignableFrom(setter.getType())) {
+                    setter.set(object, property.view.deserialize((JsonArray) jsonValue, false, resolver));
+                } else if (valueType == JsonValue.ValueType.STRING) {
+                    JsonString jsonString = (JsonString) jsonValue;
+                    if (jsonString.getString().trim().isEmpty()) {
+                        setter.set(object, null);
+                    } else {
+                        log.error("JSON String: " + jsonString.getString());
+                        throw new ClassCastException(property.name + " cannot be cast to an object.");
                     }
+                } else {
+                    setter.set(object, property.view.deserialize((JsonObject) jsonValue, false, resolver));
                 }
             }
             return object;
@@ -299,88 +533,6 @@ public class SerializedView<T> {
         }
     }
 
-    private Object coerceToSimpleType(JsonValue jsonValue, Class<?> target) {
-        if (jsonValue == null || jsonValue.getValueType() == JsonValue.ValueType.NULL) {
-            return null;
-        }
-        if (jsonValue instanceof JsonNumber) {
-            if (target == Byte.class || target == byte.class) {
-                return (byte) ((JsonNumber) jsonValue).intValue();
-            } else if (target == Short.class || target == short.class) {
-                return (short) ((JsonNumber) jsonValue).intValue();
-            } else if (target == Integer.class || target == int.class) {
-                return ((JsonNumber) jsonValue).intValue();
-            } else if (target == Long.class || target == long.class) {
-                return ((JsonNumber) jsonValue).longValue();
-            } else if (target == Float.class || target == float.class) {
-                return (float) ((JsonNumber) jsonValue).doubleValue();
-            } else if (target == Double.class || target == double.class) {
-                return (float) ((JsonNumber) jsonValue).doubleValue();
-            } else if (target == BigDecimal.class || target == BigDecimal.class) {
-                return ((JsonNumber) jsonValue).bigDecimalValue();
-            }
-        } else if (jsonValue instanceof JsonString) {
-            String jsonString = ((JsonString) jsonValue).getChars().toString();
-            if (target == Byte.class || target == byte.class) {
-                return (byte) Integer.parseInt(jsonString);
-            } else if (target == Short.class || target == short.class) {
-                return (short) Integer.parseInt(jsonString);
-            } else if (target == Integer.class || target == int.class) {
-                if (jsonString.isEmpty() && target == Integer.class) {
-                    return null;
-                }
-
-                if (jsonString.isEmpty() && target == int.class) {
-                    return 0;
-                }
-
-                return Integer.parseInt(jsonString);
-            } else if (target == Long.class || target == long.class) {
-                return Long.parseLong(jsonString);
-            } else if (target == Float.class || target == float.class) {
-                return Float.parseFloat(jsonString);
-            } else if (target == Double.class || target == double.class) {
-                return Double.parseDouble(jsonString);
-            } else if (target == BigDecimal.class || target == BigDecimal.class) {
-                if (jsonString.isEmpty()) {
-                    return null;
-                }
-                try {
-                    return new BigDecimal(jsonString);
-                } catch (NumberFormatException ex) {
-                    throw new RuntimeException(jsonString + " is invalid.");
-                }
-            } else if (target == Date.class) {
-                if (jsonString.isEmpty()) {
-                    return null;
-                }
-                try {
-                    return DATE_FORMAT.get().parse(jsonString);
-                } catch (ParseException e) {
-                    throw new RuntimeException(e);
-                }
-            } else if (RestfulEnum.class.isAssignableFrom(target)) {
-                for (Object val : target.getEnumConstants()) {
-                    RestfulEnum r = (RestfulEnum) val;
-                    if (r.getLabel().equals(jsonString)) {
-                        return r;
-                    }
-                }
-            } else if (target.isEnum()) {
-                return Enum.valueOf((Class) target, jsonString);
-            } else if (target == String.class) {
-                return jsonString;
-            } else if (target == Boolean.class || target == boolean.class) {
-                return Boolean.parseBoolean(jsonString);
-            }
-        } else if (jsonValue.getValueType() == JsonValue.ValueType.TRUE) {
-            return true;
-        } else if (jsonValue.getValueType() == JsonValue.ValueType.FALSE) {
-            return false;
-        }
-        throw new RuntimeException("Could not convert " + jsonValue + " of type " + jsonValue.getValueType() + " to " + target);
-    }
-
     public SerializedObject<T> serialize(final T object) {
         if (object == null) {
             return null;
@@ -389,50 +541,33 @@ public class SerializedView<T> {
     }
 
     public SerializedObject<T> serialize(final Map<String, Object> additional) {
+        long start = RequestMetrics.start();
         JsonObjectBuilder builder = serializeToJson(null, additional);
         JsonObject jsonObject = builder.build();
+        RequestMetrics.stop(Phase.SERIALIZE, start);
+        RequestMetrics.rows(1);
         return new SerializedObject<>(null, jsonObject);
     }
 
     public SerializedObject<T> serialize(final T object, final Map<String, Object> additional) {
+        long start = RequestMetrics.start();
         JsonObjectBuilder builder = serializeToJson(object, additional);
         JsonObject jsonObject = builder.build();
+        RequestMetrics.stop(Phase.SERIALIZE, start);
+        RequestMetrics.rows(1);
         return new SerializedObject<>(object, jsonObject);
     }
 
     JsonObjectBuilder serializeToJson(Object object, final Map<String, Object> additional) {
         try {
-            JsonObjectBuilder builder = Json.createObjectBuilder();
+            JsonObjectBuilder builder = BUILDER_FACTORY.createObjectBuilder();
             if (object != null) {
-                if (defaultExclude) {
-                    for (String field : include) {
-                        Method getter = getters.get(field);
-                        if (getter != null) {
-                            Object value = getter.invoke(object);
-                            serializeSimple(builder, field, value, showDateTime);
-                        }
-                    }
-                } else {
-                    for (String field : allSimple) {
-                        if (exclude.contains(field)) {
-                            continue;
-                        }
-                        Method getter = getters.get(field);
-                        if (getter != null) {
-                            Object value = getter.invoke(object);
-                            if (value != null) {
-                                serializeSimple(builder, field, value, showDateTime);
-                            }
-                        }
-                    }
+                for (ViewProperty property : serializedSimple) {
+                    property.encoder.write(builder, property.name, property.getter, object);
                 }
 
-                for (Map.Entry<String, SerializedView> entry : includeCustom.entrySet()) {
-                    Method getter = getters.get(entry.getKey());
-                    if (getter != null) {
-                        Object value = getter.invoke(object);
-                        serializeFieldValue(builder, entry.getKey(), entry.getValue(), value, showDateTime);
-                    }
+                for (ViewProperty property : serializedCustom) {
+                    serializeFieldValue(builder, property.name, property.view, property.getter.get(object));
                 }
             }
 
@@ -445,7 +580,7 @@ public class SerializedView<T> {
                     if (type == null) {
                         throw new RuntimeException("Unknown additional JSON value " + entry.getKey());
                     }
-                    serializeFieldValue(builder, entry.getKey(), type, value, showDateTime);
+                    serializeFieldValue(builder, entry.getKey(), type, value);
                 }
             }
 
@@ -458,7 +593,7 @@ public class SerializedView<T> {
     }
 
     private JsonArrayBuilder serializeListToJson(List<?> values) {
-        JsonArrayBuilder builder = Json.createArrayBuilder();
+        JsonArrayBuilder builder = BUILDER_FACTORY.createArrayBuilder();
         for (Object value : values) {
             //bit of a hack
             if (value instanceof String) {
@@ -472,29 +607,281 @@ public class SerializedView<T> {
         return builder;
     }
 
+    /**
+     * If the view was built with {@link Builder#parallel(int)} large lists are serialized in parallel.
+     *
+     * @param values The values to serialize
+     * @return The serialized list
+     */
     public SerializedObject<List<T>> serializeList(final List<T> values) {
-        JsonArrayBuilder array = serializeListToJson(values);
-        JsonArray jsonObject = array.build();
-        return new SerializedObject<>(values, jsonObject);
+        long start = RequestMetrics.start();
+        SerializedObject<List<T>> ret;
+        if (isParallel(values.size())) {
+            ret = new SerializedObject<>(values, serializeListInParallel(values));
+        } else {
+            JsonArrayBuilder array = serializeListToJson(values);
+            JsonArray jsonObject = array.build();
+            ret = new SerializedObject<>(values, jsonObject);
+        }
+        RequestMetrics.stop(Phase.SERIALIZE, start);
+        RequestMetrics.rows(values.size());
+        return ret;
+    }
+
+    /**
+     * Entities may be lazily loaded through nested views, which must not happen on another thread, so only
+     * views that only read the objects' own simple properties are serialized in parallel.
+     */
+    private boolean isParallel(int size) {
+        return parallelThreshold > 0
+                && size >= parallelThreshold
+                && (!entity || serializedCustom.length == 0);
+    }
+
+    /**
+     * Splits the list into chunks that are serialized into separate strings on the common fork join pool, and
+     * then joined in order.
+     */
+    private String serializeListInParallel(List<T> values) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, values.size() / (pool.getParallelism() * 4) + 1);
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += chunkSize) {
+            final List<T> chunk = values.subList(i, Math.min(values.size(), i + chunkSize));
+            tasks.add(new Callable<String>() {
+                @Override
+                public String call() {
+                    return serializeChunk(chunk);
+                }
+            });
+        }
+        StringBuilder ret = new StringBuilder("[");
+        try {
+            for (Future<String> chunk : pool.invokeAll(tasks)) {
+                String elements = chunk.get();
+                if (!elements.isEmpty()) {
+                    if (ret.length() > 1) {
+                        ret.append(',');
+                    }
+                    ret.append(elements);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return ret.append(']').toString();
+    }
+
+    /**
+     * @return The serialized elements, without the enclosing brackets
+     */
+    private String serializeChunk(List<T> values) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = GENERATOR_FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            for (Object value : values) {
+                //same hack as serializeListToJson
+                if (value instanceof String || value instanceof Number) {
+                    generator.write(value.toString());
+                } else {
+                    generator.write(serializeToJson(value, Collections.<String, Object>emptyMap()).build());
+                }
+            }
+            generator.writeEnd();
+        }
+        String array = out.toString();
+        return array.substring(1, array.length() - 1);
+    }
+
+    /**
+     * Serializes a list as it is written to the response, one element at a time, rather than building the whole
+     * JSON array in memory.
+     * <p/>
+     * This happens after the endpoint has returned, so the values must not rely on lazy loading.
+     *
+     * @param values The values to serialize
+     * @return A streaming serialized object
+     */
+    public <C extends Iterable<? extends T>> SerializedObject<C> streamList(final C values) {
+        return new SerializedObject<>(values, new StreamingWriter() {
+            @Override
+            public void write(JsonGenerator generator) {
+                long rows = 0;
+                generator.writeStartArray();
+                for (Object value : values) {
+                    //same hack as serializeListToJson
+                    if (value instanceof String || value instanceof Number) {
+                        generator.write(value.toString());
+                    } else {
+                        generator.write(serializeToJson(value, Collections.<String, Object>emptyMap()).build());
+                    }
+                    ++rows;
+                }
+                generator.writeEnd();
+                RequestMetrics.rows(rows);
+            }
+        });
+    }
+
+    /**
+     * Serializes the results of a tuple query built with {@link #getSelections(Path)}, without loading the
+     * entities.
+     *
+     * @param tuples The tuples
+     * @return The serialized tuples
+     */
+    public SerializedObject<List<Tuple>> serializeTuples(final List<Tuple> tuples) {
+        checkProjectable();
+        long start = RequestMetrics.start();
+        JsonArrayBuilder builder = BUILDER_FACTORY.createArrayBuilder();
+        for (Tuple tuple : tuples) {
+            builder.add(serializeTupleToJson(tuple));
+        }
+        JsonArray array = builder.build();
+        RequestMetrics.stop(Phase.SERIALIZE, start);
+        RequestMetrics.rows(tuples.size());
+        return new SerializedObject<>(tuples, array);
+    }
+
+    /**
+     * The streaming version of {@link #serializeTuples(List)}, see {@link #streamList(Iterable)}.
+     *
+     * @param tuples The tuples
+     * @return A streaming serialized object
+     */
+    public <C extends Iterable<Tuple>> SerializedObject<C> streamTuples(final C tuples) {
+        checkProjectable();
+        return new SerializedObject<>(tuples, new StreamingWriter() {
+            @Override
+            public void write(JsonGenerator generator) {
+                long rows = 0;
+                generator.writeStartArray();
+                for (Tuple tuple : tuples) {
+                    generator.write(serializeTupleToJson(tuple).build());
+                    ++rows;
+                }
+                generator.writeEnd();
+                RequestMetrics.rows(rows);
+            }
+        });
+    }
+
+    private JsonObjectBuilder serializeTupleToJson(Tuple tuple) {
+        JsonObjectBuilder builder = BUILDER_FACTORY.createObjectBuilder();
+        for (ViewProperty property : serializedSimple) {
+            Object value = tuple.get(property.name);
+            if (value != null) {
+                property.encoder.write(builder, property.name, value);
+            }
+        }
+        return builder;
     }
 
     private JsonObjectBuilder serializeMapToJson(Map<?, ?> values) {
-        JsonObjectBuilder builder = Json.createObjectBuilder();
+        JsonObjectBuilder builder = BUILDER_FACTORY.createObjectBuilder();
         for (Map.Entry<?, ?> value : values.entrySet()) {
-            serializeFieldValue(builder, value.getKey().toString(), this, value.getValue(), showDateTime);
+            serializeFieldValue(builder, value.getKey().toString(), this, value.getValue());
         }
         return builder;
     }
 
     public SerializedObject<Map<String, T>> serializeMap(final Map<String, T> values) {
-        JsonObjectBuilder array = serializeMapToJson(values);
-        return new SerializedObject<>(values, array.build());
+        long start = RequestMetrics.start();
+        JsonObject object = serializeMapToJson(values).build();
+        RequestMetrics.stop(Phase.SERIALIZE, start);
+        RequestMetrics.rows(values.size());
+        return new SerializedObject<>(values, object);
     }
 
     public Class<?> getEntityClass() {
         return entityClass;
     }
 
+    /**
+     * Returns a view that only writes the given properties, e.g. for a sparse fieldset requested by the client.
+     * <p/>
+     * Only properties this view writes can be selected, so anything it excludes stays excluded. The restricted
+     * views are cached, so this is cheap to call for every request.
+     *
+     * @param fields The properties to write, blank names are ignored
+     * @return The restricted view, or this view if all its properties were selected
+     * @throws IllegalArgumentException If a field is not written by this view, or no fields are given
+     */
+    public SerializedView<T> restrict(Collection<String> fields) {
+        Set<String> key = new TreeSet<>();
+        for (String field : fields) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!properties.contains(name)) {
+                throw new IllegalArgumentException("Unknown field " + name);
+            }
+            key.add(name);
+        }
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("No fields selected");
+        }
+        if (key.size() == properties.size()) {
+            return this;
+        }
+        SerializedView<T> view = restricted.get(key);
+        if (view == null) {
+            view = new SerializedView<>(this, key);
+            if (restricted.size() < MAX_RESTRICTED_VIEWS) {
+                SerializedView<T> existing = restricted.putIfAbsent(Collections.unmodifiableSet(key), view);
+                if (existing != null) {
+                    view = existing;
+                }
+            }
+        }
+        return view;
+    }
+
+    /**
+     * @return The names of the properties this view writes, in order
+     */
+    public Set<String> getRequiredProperties() {
+        return requiredProperties;
+    }
+
+    /**
+     * @return true if this view only writes simple properties, so it can be serialized from a tuple projection
+     */
+    public boolean isProjectable() {
+        return entity && serializedCustom.length == 0;
+    }
+
+    /**
+     * The selections for a tuple query that only loads the properties this view writes, each aliased with the
+     * property name. All of these properties must be persistent attributes of the entity.
+     * <p/>
+     * The returned list may be modified, e.g. to also select a property used for paging.
+     *
+     * @param root The entity being queried
+     * @return The selections
+     */
+    public List<Selection<?>> getSelections(Path<? extends T> root) {
+        checkProjectable();
+        List<Selection<?>> selections = new ArrayList<>(requiredProperties.size());
+        for (String property : requiredProperties) {
+            selections.add(root.get(property).alias(property));
+        }
+        return selections;
+    }
+
+    private void checkProjectable() {
+        if (!isProjectable()) {
+            throw new IllegalStateException("View of " + entityClass + " cannot be serialized from a projection");
+        }
+    }
+
     public static final class Builder<T> {
         private final Class<T> entityClass;
         private final Set<String> exclude = new LinkedHashSet<>();
@@ -507,7 +894,9 @@ public class SerializedView<T> {
         private boolean defaultExclude;
         private boolean forceEntityPropagation;
         private boolean showDateTime;
+        private ZoneId zone;
         private boolean detach = true;
+        private int parallelThreshold;
         private Method createMethod;
 
         Builder(Class<T> entityClass) {
@@ -589,6 +978,17 @@ public class SerializedView<T> {
             return this;
         }
 
+        /**
+         * The zone dates are written and read in. Defaults to the system default zone when the view is built.
+         *
+         * @param zone The zone
+         * @return this
+         */
+        public Builder<T> dateZone(ZoneId zone) {
+            this.zone = zone;
+            return this;
+        }
+
         /**
          * Excludes some fields from serialization.
          *
@@ -662,6 +1062,25 @@ public class SerializedView<T> {
             return this;
         }
 
+        /**
+         * Serializes lists with at least this many elements on multiple threads in
+         * {@link SerializedView#serializeList(List)}.
+         * <p/>
+         * This must only be used for plain objects or detached entities, as their getters are called from other
+         * threads. Entity views with nested views are always serialized on the calling thread, as they could
+         * trigger lazy loading.
+         *
+         * @param threshold The smallest list that is serialized in parallel
+         * @return this
+         */
+        public Builder<T> parallel(int threshold) {
+            if (threshold < 1) {
+                throw new IllegalArgumentException("threshold must be positive");
+            }
+            this.parallelThreshold = threshold;
+            return this;
+        }
+
         public SerializedView<T> build() {
             return new SerializedView<>(this);
         }
@@ -0,0 +1,11 @@
+package com.briteitservices.week4.serialization;
+
+import javax.json.stream.JsonGenerator;
+
+/**
+ * Deferred serialization of an object, run when the response body is written.
+ */
+interface StreamingWriter {
+
+    void write(JsonGenerator generator);
+}
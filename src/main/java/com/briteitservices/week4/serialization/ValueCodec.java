@@ -0,0 +1,387 @@
+package com.briteitservices.week4.serialization;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import javax.json.JsonNumber;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Writes and reads a simple value of a known type.
+ * <p/>
+ * A codec is picked for each property from its getter or setter type when the view is built, so values are
+ * not inspected with <code>instanceof</code> checks as they are serialized. Codecs for primitive
+ * <code>int</code> and <code>long</code> properties read the value without boxing it.
+ */
+abstract class ValueCodec {
+
+    private static final ValueCodec INTEGER = new IntegerCodec(Integer.class);
+    private static final ValueCodec PRIMITIVE_INT = new IntegerCodec(int.class);
+    private static final ValueCodec LONG = new LongCodec(Long.class);
+    private static final ValueCodec PRIMITIVE_LONG = new LongCodec(long.class);
+    private static final ValueCodec BIG_DECIMAL = new BigDecimalCodec();
+    private static final ValueCodec BOOLEAN = new BooleanCodec(Boolean.class);
+    private static final ValueCodec PRIMITIVE_BOOLEAN = new BooleanCodec(boolean.class);
+    private static final ValueCodec STRING = new StringCodec();
+
+    /**
+     * Returned by {@link #readNumber(JsonNumber)} and {@link #readString(String)} if the value cannot be converted
+     */
+    static final Object UNCONVERTIBLE = new Object();
+
+    final Class<?> type;
+
+    ValueCodec(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * @param type         The declared type of the property, or the runtime type of the value
+     * @param showDateTime If dates should include the time
+     * @param zone         The zone dates are written in
+     * @return The codec for the type
+     */
+    static ValueCodec forType(Class<?> type, boolean showDateTime, ZoneId zone) {
+        if (type == Integer.class) {
+            return INTEGER;
+        } else if (type == int.class) {
+            return PRIMITIVE_INT;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == long.class) {
+            return PRIMITIVE_LONG;
+        } else if (BigDecimal.class.isAssignableFrom(type)) {
+            return BIG_DECIMAL;
+        } else if (Date.class.isAssignableFrom(type)) {
+            return new DateCodec(new JsonDateFormat(zone, showDateTime), new JsonDateFormat(zone, false));
+        } else if (type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == boolean.class) {
+            return PRIMITIVE_BOOLEAN;
+        } else if (RestfulEnum.class.isAssignableFrom(type)) {
+            return new RestfulEnumCodec(type);
+        } else if (type.isEnum()) {
+            return new EnumCodec(type);
+        } else if (type == String.class) {
+            return STRING;
+        } else if (type == Byte.class || type == byte.class
+                || type == Short.class || type == short.class
+                || type == Float.class || type == float.class
+                || type == Double.class || type == double.class) {
+            return new NumberCodec(type);
+        }
+        return new ValueCodec(type) {
+            @Override
+            void write(JsonObjectBuilder builder, String name, Object value) {
+                builder.add(name, value.toString());
+            }
+        };
+    }
+
+    /**
+     * Writes the property of the object, nothing is written if it is null.
+     */
+    void write(JsonObjectBuilder builder, String name, PropertyGetter getter, Object object) throws InvocationTargetException, IllegalAccessException {
+        Object value = getter.get(object);
+        if (value != null) {
+            write(builder, name, value);
+        }
+    }
+
+    /**
+     * @param value The value, never null
+     */
+    abstract void write(JsonObjectBuilder builder, String name, Object value);
+
+    Object read(JsonValue jsonValue) {
+        Object value;
+        switch (jsonValue.getValueType()) {
+            case NULL:
+                return null;
+            case NUMBER:
+                value = readNumber((JsonNumber) jsonValue);
+                break;
+            case STRING:
+                value = readString(((JsonString) jsonValue).getString());
+                break;
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            default:
+                value = UNCONVERTIBLE;
+        }
+        if (value == UNCONVERTIBLE) {
+            throw new RuntimeException("Could not convert " + jsonValue + " of type " + jsonValue.getValueType() + " to " + type);
+        }
+        return value;
+    }
+
+    Object readNumber(JsonNumber jsonNumber) {
+        return UNCONVERTIBLE;
+    }
+
+    Object readString(String jsonString) {
+        return UNCONVERTIBLE;
+    }
+
+    private static final class IntegerCodec extends ValueCodec {
+
+        private final boolean primitive;
+
+        IntegerCodec(Class<?> type) {
+            super(type);
+            this.primitive = type.isPrimitive();
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, PropertyGetter getter, Object object) throws InvocationTargetException, IllegalAccessException {
+            if (primitive) {
+                builder.add(name, getter.getInt(object));
+            } else {
+                super.write(builder, name, getter, object);
+            }
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, (Integer) value);
+        }
+
+        @Override
+        Object readNumber(JsonNumber jsonNumber) {
+            return jsonNumber.intValue();
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            if (jsonString.isEmpty()) {
+                return primitive ? 0 : null;
+            }
+            return Integer.parseInt(jsonString);
+        }
+    }
+
+    private static final class LongCodec extends ValueCodec {
+
+        private final boolean primitive;
+
+        LongCodec(Class<?> type) {
+            super(type);
+            this.primitive = type.isPrimitive();
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, PropertyGetter getter, Object object) throws InvocationTargetException, IllegalAccessException {
+            if (primitive) {
+                builder.add(name, getter.getLong(object));
+            } else {
+                super.write(builder, name, getter, object);
+            }
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, (Long) value);
+        }
+
+        @Override
+        Object readNumber(JsonNumber jsonNumber) {
+            return jsonNumber.longValue();
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            return Long.parseLong(jsonString);
+        }
+    }
+
+    private static final class BigDecimalCodec extends ValueCodec {
+
+        BigDecimalCodec() {
+            super(BigDecimal.class);
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, (BigDecimal) value);
+        }
+
+        @Override
+        Object readNumber(JsonNumber jsonNumber) {
+            return jsonNumber.bigDecimalValue();
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            if (jsonString.isEmpty()) {
+                return null;
+            }
+            try {
+                return new BigDecimal(jsonString);
+            } catch (NumberFormatException ex) {
+                throw new RuntimeException(jsonString + " is invalid.");
+            }
+        }
+    }
+
+    private static final class DateCodec extends ValueCodec {
+
+        private final JsonDateFormat writeFormat;
+        /**
+         * Dates are always read without the time
+         */
+        private final JsonDateFormat readFormat;
+
+        DateCodec(JsonDateFormat writeFormat, JsonDateFormat readFormat) {
+            super(Date.class);
+            this.writeFormat = writeFormat;
+            this.readFormat = readFormat;
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, writeFormat.format((Date) value));
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            if (jsonString.isEmpty()) {
+                return null;
+            }
+            try {
+                return readFormat.parse(jsonString);
+            } catch (ParseException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static final class BooleanCodec extends ValueCodec {
+
+        BooleanCodec(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, (Boolean) value);
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            return Boolean.parseBoolean(jsonString);
+        }
+    }
+
+    private static final class RestfulEnumCodec extends ValueCodec {
+
+        RestfulEnumCodec(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            if (value instanceof Enum) {
+                builder.add(name, RestfulEnums.getLabel((Enum<?>) value));
+            } else {
+                builder.add(name, ((RestfulEnum) value).getLabel());
+            }
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            Object value = type.isEnum() ? RestfulEnums.valueOf(type, jsonString) : null;
+            return value == null ? UNCONVERTIBLE : value;
+        }
+    }
+
+    private static final class EnumCodec extends ValueCodec {
+
+        private final Map<String, Object> constants = new HashMap<>();
+
+        EnumCodec(Class<?> type) {
+            super(type);
+            for (Object constant : type.getEnumConstants()) {
+                constants.put(((Enum<?>) constant).name(), constant);
+            }
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, value.toString());
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            Object value = constants.get(jsonString);
+            if (value == null) {
+                //as Enum.valueOf
+                throw new IllegalArgumentException("No enum constant " + type.getCanonicalName() + "." + jsonString);
+            }
+            return value;
+        }
+    }
+
+    private static final class StringCodec extends ValueCodec {
+
+        StringCodec() {
+            super(String.class);
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, value.toString());
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            return jsonString;
+        }
+    }
+
+    /**
+     * The remaining number types, which are written as strings.
+     */
+    private static final class NumberCodec extends ValueCodec {
+
+        NumberCodec(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void write(JsonObjectBuilder builder, String name, Object value) {
+            builder.add(name, value.toString());
+        }
+
+        @Override
+        Object readNumber(JsonNumber jsonNumber) {
+            if (type == Byte.class || type == byte.class) {
+                return (byte) jsonNumber.intValue();
+            } else if (type == Short.class || type == short.class) {
+                return (short) jsonNumber.intValue();
+            } else if (type == Float.class || type == float.class) {
+                return (float) jsonNumber.doubleValue();
+            }
+            return jsonNumber.doubleValue();
+        }
+
+        @Override
+        Object readString(String jsonString) {
+            if (type == Byte.class || type == byte.class) {
+                return (byte) Integer.parseInt(jsonString);
+            } else if (type == Short.class || type == short.class) {
+                return (short) Integer.parseInt(jsonString);
+            } else if (type == Float.class || type == float.class) {
+                return Float.parseFloat(jsonString);
+            }
+            return Double.parseDouble(jsonString);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.briteitservices.week4.serialization;
+
+import java.time.ZoneId;
+
+/**
+ * A property of a {@link SerializedView}, resolved once when the view is built.
+ *
+ * @see SerializedView
+ */
+final class ViewProperty {
+
+    final String name;
+    final PropertyGetter getter;
+    final PropertySetter setter;
+    /**
+     * Writes a simple property, picked from the getter type. Null for a complex property or if there is no getter
+     */
+    final ValueCodec encoder;
+    /**
+     * Reads a simple property, picked from the setter type. Null for a complex property or if there is no setter
+     */
+    final ValueCodec decoder;
+    /**
+     * The view for a complex property, null for a simple one
+     */
+    final SerializedView<?> view;
+
+    ViewProperty(String name, PropertyGetter getter, PropertySetter setter, SerializedView<?> view, boolean showDateTime, ZoneId zone) {
+        this.name = name;
+        this.getter = getter;
+        this.setter = setter;
+        this.encoder = getter == null || view != null ? null : ValueCodec.forType(getter.getType(), showDateTime, zone);
+        this.decoder = setter == null || view != null ? null : ValueCodec.forType(setter.getType(), showDateTime, zone);
+        this.view = view;
+    }
+}
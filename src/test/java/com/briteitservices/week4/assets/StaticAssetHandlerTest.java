@@ -0,0 +1,38 @@
+package com.briteitservices.week4.assets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StaticAssetHandlerTest {
+
+    @Test
+    public void testForbidden() {
+        Assert.assertTrue(StaticAssetHandler.isForbidden("/WEB-INF/web.xml"));
+        Assert.assertTrue(StaticAssetHandler.isForbidden("/web-inf/web.xml"));
+        Assert.assertTrue(StaticAssetHandler.isForbidden("/Web-Inf/"));
+        Assert.assertTrue(StaticAssetHandler.isForbidden("/META-INF/MANIFEST.MF"));
+        Assert.assertTrue(StaticAssetHandler.isForbidden("/meta-inf/"));
+        Assert.assertFalse(StaticAssetHandler.isForbidden("/WEB-INF.html"));
+        Assert.assertFalse(StaticAssetHandler.isForbidden("/app/WEB-INF/web.xml"));
+        Assert.assertFalse(StaticAssetHandler.isForbidden("/index.html"));
+    }
+
+    @Test
+    public void testExcluded() {
+        List<String> patterns = Arrays.asList("/rest/*", "*.jsp", "/admin.html");
+        Assert.assertTrue(StaticAssetHandler.isExcluded("/rest/user", patterns));
+        Assert.assertTrue(StaticAssetHandler.isExcluded("/rest", patterns));
+        Assert.assertTrue(StaticAssetHandler.isExcluded("/pages/index.jsp", patterns));
+        Assert.assertTrue(StaticAssetHandler.isExcluded("/admin.html", patterns));
+        Assert.assertFalse(StaticAssetHandler.isExcluded("/restful.html", patterns));
+        Assert.assertFalse(StaticAssetHandler.isExcluded("/index.html", patterns));
+        Assert.assertFalse(StaticAssetHandler.isExcluded("/", patterns));
+        Assert.assertTrue(StaticAssetHandler.isExcluded("/index.html", Collections.singletonList("/*")));
+        Assert.assertTrue(StaticAssetHandler.isExcluded("/index.html", Collections.singletonList("/")));
+        Assert.assertTrue(StaticAssetHandler.isExcluded("/", Collections.singletonList("")));
+        Assert.assertFalse(StaticAssetHandler.isExcluded("/index.html", Collections.singletonList("")));
+    }
+}
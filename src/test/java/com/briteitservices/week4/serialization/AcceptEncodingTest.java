@@ -0,0 +1,36 @@
+package com.briteitservices.week4.serialization;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AcceptEncodingTest {
+
+    @Test
+    public void testAcceptsGzip() {
+        Assert.assertFalse(AcceptEncoding.acceptsGzip(null));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip(""));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("identity"));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("deflate, br"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("gzip"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("GZIP"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("x-gzip"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("deflate, gzip, br"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip(" gzip ; q=0.5 "));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("*"));
+    }
+
+    @Test
+    public void testAcceptsGzipQuality() {
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("gzip;q=1"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("gzip;q=0.001"));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0.000"));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("gzip;q=invalid"));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("*;q=0"));
+        //an explicit gzip entry takes precedence over *, whichever comes first
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0, *"));
+        Assert.assertFalse(AcceptEncoding.acceptsGzip("*, gzip;q=0"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("*;q=0, gzip"));
+        Assert.assertTrue(AcceptEncoding.acceptsGzip("gzip, *;q=0"));
+    }
+}
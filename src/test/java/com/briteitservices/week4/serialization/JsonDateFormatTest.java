@@ -0,0 +1,112 @@
+package com.briteitservices.week4.serialization;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@link JsonDateFormat} must give exactly the same results as the {@link SimpleDateFormat}s it replaced.
+ */
+public class JsonDateFormatTest {
+
+    /**
+     * Zones with unusual offsets or transitions: half hour DST (Lord Howe), DST starting at midnight (Sao Paulo),
+     * skipping a whole day (Apia), and a fixed offset with a fraction of an hour (Kolkata)
+     */
+    private static final List<String> ZONES = Arrays.asList("UTC", "America/New_York", "Europe/London",
+            "Australia/Lord_Howe", "America/Sao_Paulo", "Pacific/Apia", "Asia/Kolkata", "Europe/Dublin");
+
+    /**
+     * 1800-01-01 to 2100-01-01, which covers the dates that are handed to SimpleDateFormat at both ends
+     */
+    private static final long MIN = -5364662400000L;
+    private static final long MAX = 4102444800000L;
+
+    @Test
+    public void testFormat() {
+        Random random = new Random(1);
+        for (String zone : ZONES) {
+            assertFormat(zone, random, 20000);
+        }
+    }
+
+    @Test
+    public void testFormatAllZones() {
+        Random random = new Random(2);
+        for (String zone : ZoneId.getAvailableZoneIds()) {
+            assertFormat(zone, random, 200);
+        }
+    }
+
+    @Test
+    public void testFormatTransitions() {
+        //either side of each transition, where the offsets of the two implementations could disagree
+        for (String zone : ZONES) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            JsonDateFormat date = new JsonDateFormat(ZoneId.of(zone), false);
+            JsonDateFormat dateTime = new JsonDateFormat(ZoneId.of(zone), true);
+            for (ZoneOffsetTransition transition : ZoneId.of(zone).getRules().getTransitions()) {
+                long instant = transition.getInstant().toEpochMilli();
+                for (long millis = instant - 2000; millis <= instant + 2000; millis += 500) {
+                    assertFormat(timeZone, date, dateTime, new Date(millis));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParse() throws ParseException {
+        Random random = new Random(3);
+        for (String zone : ZONES) {
+            JsonDateFormat format = new JsonDateFormat(ZoneId.of(zone), false);
+            SimpleDateFormat expected = legacy(TimeZone.getTimeZone(zone), "yyyy-MM-dd");
+            for (int i = 0; i < 20000; ++i) {
+                //days up to 31 in every month, so invalid dates that SimpleDateFormat rolls over are included
+                String text = String.format("%04d-%02d-%02d", 1800 + random.nextInt(300), 1 + random.nextInt(12), 1 + random.nextInt(31));
+                Assert.assertEquals(zone + " " + text, expected.parse(text), format.parse(text));
+            }
+        }
+    }
+
+    @Test
+    public void testParseTrailingText() throws ParseException {
+        JsonDateFormat format = new JsonDateFormat(ZoneId.of("America/New_York"), false);
+        SimpleDateFormat expected = legacy(TimeZone.getTimeZone("America/New_York"), "yyyy-MM-dd");
+        for (String text : Arrays.asList("2018-03-11 12:30:00", "2018-03-11T00:00", "2018-03-110", "2018-3-11", "18-03-11")) {
+            Assert.assertEquals(text, expected.parse(text), format.parse(text));
+        }
+    }
+
+    @Test(expected = ParseException.class)
+    public void testParseInvalid() throws ParseException {
+        new JsonDateFormat(ZoneId.of("UTC"), false).parse("not a date");
+    }
+
+    private static void assertFormat(String zone, Random random, int count) {
+        TimeZone timeZone = TimeZone.getTimeZone(zone);
+        JsonDateFormat date = new JsonDateFormat(ZoneId.of(zone), false);
+        JsonDateFormat dateTime = new JsonDateFormat(ZoneId.of(zone), true);
+        for (int i = 0; i < count; ++i) {
+            assertFormat(timeZone, date, dateTime, new Date(MIN + (long) (random.nextDouble() * (MAX - MIN))));
+        }
+    }
+
+    private static void assertFormat(TimeZone zone, JsonDateFormat date, JsonDateFormat dateTime, Date value) {
+        Assert.assertEquals(zone.getID() + " " + value.getTime(), legacy(zone, "yyyy-MM-dd").format(value), date.format(value));
+        Assert.assertEquals(zone.getID() + " " + value.getTime(), legacy(zone, "yyyy-MM-dd HH:mm:ss").format(value), dateTime.format(value));
+    }
+
+    private static SimpleDateFormat legacy(TimeZone zone, String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(zone);
+        return format;
+    }
+}
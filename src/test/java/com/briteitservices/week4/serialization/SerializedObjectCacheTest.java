@@ -0,0 +1,121 @@
+package com.briteitservices.week4.serialization;
+
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SerializedObjectCacheTest {
+
+    private static final SerializedView<Item> VIEW = SerializedView.builder(Item.class).build();
+
+    @Test
+    public void testEncodedOnly() {
+        SerializedObjectCache cache = new SerializedObjectCache(1 << 20);
+        SerializedObject<Item> serialized = VIEW.serialize(new Item(1, "a"));
+        cache.put(VIEW, 1, 0, serialized, cache.getStamp());
+
+        SerializedObject<Item> cached = cache.get(VIEW, 1);
+        Assert.assertNull(cached.getObject());
+        Assert.assertArrayEquals(serialized.getBytes(), cached.getBytes());
+        Assert.assertEquals(serialized.getSerialized(), cached.getSerialized());
+        Assert.assertEquals(serialized.getJsonValue(), cached.getJsonValue());
+        Assert.assertEquals(serialized.getEntityTag(), cached.getEntityTag());
+        Assert.assertEquals(serialized.getBytes().length + 256, cache.getBytes());
+    }
+
+    @Test
+    public void testInvalidateEveryView() {
+        SerializedObjectCache cache = new SerializedObjectCache(1 << 20);
+        SerializedView<Item> restricted = VIEW.restrict(Collections.singleton("name"));
+        cache.put(VIEW, 1, 0, VIEW.serialize(new Item(1, "a")), cache.getStamp());
+        cache.put(restricted, 1, 0, restricted.serialize(new Item(1, "a")), cache.getStamp());
+        cache.put(VIEW, 2, 0, VIEW.serialize(new Item(2, "b")), cache.getStamp());
+
+        cache.invalidate(Item.class, 1);
+        Assert.assertNull(cache.get(VIEW, 1));
+        Assert.assertNull(cache.get(restricted, 1));
+        Assert.assertNotNull(cache.get(VIEW, 2));
+        Assert.assertEquals(1, cache.getEntryCount());
+        Assert.assertEquals(VIEW.serialize(new Item(2, "b")).getBytes().length + 256, cache.getBytes());
+    }
+
+    @Test
+    public void testStaleStamp() {
+        SerializedObjectCache cache = new SerializedObjectCache(1 << 20);
+        long stamp = cache.getStamp();
+        cache.invalidate(Item.class, 2);
+        cache.put(VIEW, 1, 0, VIEW.serialize(new Item(1, "a")), stamp);
+        Assert.assertNull(cache.get(VIEW, 1));
+    }
+
+    @Test
+    public void testOlderVersion() {
+        SerializedObjectCache cache = new SerializedObjectCache(1 << 20);
+        cache.put(VIEW, 1, 2, VIEW.serialize(new Item(1, "new")), cache.getStamp());
+        cache.put(VIEW, 1, 1, VIEW.serialize(new Item(1, "old")), cache.getStamp());
+        Assert.assertEquals(VIEW.serialize(new Item(1, "new")).getSerialized(), cache.get(VIEW, 1).getSerialized());
+    }
+
+    @Test
+    public void testEviction() {
+        int size = VIEW.serialize(new Item(10, "a")).getBytes().length + 256;
+        SerializedObjectCache cache = new SerializedObjectCache(size * 3);
+        for (int i = 10; i < 14; ++i) {
+            cache.put(VIEW, i, 0, VIEW.serialize(new Item(i, "a")), cache.getStamp());
+        }
+        Assert.assertEquals(3, cache.getEntryCount());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertEquals(size * 3, cache.getBytes());
+        Assert.assertNull(cache.get(VIEW, 10));
+
+        //the evicted entry is no longer indexed, so invalidating it does nothing
+        cache.invalidate(Item.class, 10);
+        Assert.assertEquals(size * 3, cache.getBytes());
+        cache.clear();
+        Assert.assertEquals(0, cache.getBytes());
+        Assert.assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void testCompressedFormCounted() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 2000; ++i) {
+            name.append('a');
+        }
+        SerializedObject<Item> serialized = VIEW.serialize(new Item(1, name.toString()));
+        SerializedObjectCache cache = new SerializedObjectCache(1 << 20);
+        cache.put(VIEW, 1, 0, serialized, cache.getStamp());
+        Assert.assertEquals(serialized.getBytes().length + serialized.getGzipBytes().length + 256, cache.getBytes());
+        Assert.assertArrayEquals(serialized.getGzipBytes(), cache.get(VIEW, 1).getGzipBytes());
+    }
+
+    public static class Item {
+
+        private Integer id;
+        private String name;
+
+        public Item() {
+        }
+
+        Item(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
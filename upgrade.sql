@@ -0,0 +1,10 @@
+-- Upgrades a database created by an earlier schema.sql, new databases are created with schema.sql alone.
+-- Each step can be run again.
+
+-- Hibernate allocates ids from the sequence in blocks of 50, see User. The sequence is moved past the existing ids,
+-- so the first block does not overlap them.
+ALTER SEQUENCE public.user_id_seq INCREMENT BY 50;
+SELECT setval('public.user_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM public.user));
+
+-- Used for optimistic locking, and to stop an older copy of a user replacing a newer one in the serialization cache
+ALTER TABLE public.user ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;